@@ -49,6 +49,10 @@ import IndoorMap from './examples/IndoorMap';
 import CameraControl from './examples/CameraControl';
 import MassiveCustomMarkers from './examples/MassiveCustomMarkers';
 import GeojsonMap from './examples/Geojson';
+import FeatureStressTest from './examples/FeatureStressTest';
+import StaticMaps from './examples/StaticMaps';
+import LabelMarkers from './examples/LabelMarkers';
+import MapPoolRecycleTest from './examples/MapPoolRecycleTest';
 
 const IOS = Platform.OS === 'ios';
 const ANDROID = Platform.OS === 'android';
@@ -179,6 +183,10 @@ export default class App extends React.Component<Props> {
         [CameraControl, 'CameraControl', true],
         [MassiveCustomMarkers, 'MassiveCustomMarkers', true],
         [GeojsonMap, 'Geojson', true],
+        [FeatureStressTest, 'Mount and unmount 10k features', true],
+        [StaticMaps, 'Render static map thumbnails (Android)', true],
+        [LabelMarkers, 'Native label markers (Android)', true],
+        [MapPoolRecycleTest, 'Reuse a pooled map (Android)', true],
       ]
         // Filter out examples that are not yet supported for Google Maps on iOS.
         .filter(
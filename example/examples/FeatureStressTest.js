@@ -0,0 +1,251 @@
+import React from 'react';
+import {
+  StyleSheet,
+  View,
+  Text,
+  Dimensions,
+  TouchableOpacity,
+} from 'react-native';
+
+import MapView, {
+  Marker,
+  Polyline,
+  Polygon,
+  ProviderPropType,
+} from 'react-native-maps';
+
+const { width, height } = Dimensions.get('window');
+
+const ASPECT_RATIO = width / height;
+const LATITUDE = 37.78825;
+const LONGITUDE = -122.4324;
+const LATITUDE_DELTA = 0.5;
+const LONGITUDE_DELTA = LATITUDE_DELTA * ASPECT_RATIO;
+const FEATURE_COUNT = 10000;
+const CYCLES = 5;
+const COLUMNS = 100;
+const SPACING = 0.005;
+
+// Every third feature is a marker, a polyline and a polygon, laid out on a grid.
+function generateFeatures(cycle) {
+  const features = [];
+  for (let i = 0; i < FEATURE_COUNT; i++) {
+    const latitude =
+      LATITUDE - LATITUDE_DELTA / 2 + Math.floor(i / COLUMNS) * SPACING;
+    const longitude =
+      LONGITUDE - LONGITUDE_DELTA / 2 + (i % COLUMNS) * SPACING;
+    features.push({
+      key: `feature-${cycle}-${i}`,
+      type: ['marker', 'polyline', 'polygon'][i % 3],
+      latitude,
+      longitude,
+    });
+  }
+  return features;
+}
+
+class FeatureStressTest extends React.Component {
+  constructor(props) {
+    super(props);
+
+    this.state = {
+      features: [],
+      running: false,
+      cycle: 0,
+      presses: 0,
+      log:
+        `Mounts and unmounts ${FEATURE_COUNT} features ${CYCLES} times ` +
+        'and checks that none leak',
+    };
+  }
+
+  componentWillUnmount() {
+    this.unmounted = true;
+  }
+
+  onFeaturePress() {
+    this.setState({ presses: this.state.presses + 1 });
+  }
+
+  setFeatures(features) {
+    return new Promise(resolve => this.setState({ features }, resolve));
+  }
+
+  // Resolves once the native side has applied every view update issued so
+  // far, so the time measured covers the native mount / unmount.
+  getFeatureStats() {
+    return this.map.getFeatureStats();
+  }
+
+  async start() {
+    if (this.state.running) {
+      return;
+    }
+    this.setState({ running: true, cycle: 0 });
+
+    let mountTime = 0;
+    let unmountTime = 0;
+    try {
+      for (let cycle = 0; cycle < CYCLES && !this.unmounted; cycle++) {
+        const features = generateFeatures(cycle);
+
+        let started = Date.now();
+        await this.setFeatures(features);
+        const mounted = await this.getFeatureStats();
+        mountTime += Date.now() - started;
+        if (mounted.registered !== FEATURE_COUNT) {
+          throw new Error(
+            `${mounted.registered} of ${FEATURE_COUNT} features registered`
+          );
+        }
+
+        started = Date.now();
+        await this.setFeatures([]);
+        const stats = await this.getFeatureStats();
+        unmountTime += Date.now() - started;
+        const leaked = Object.keys(stats)
+          .filter(key => stats[key] !== 0)
+          .map(key => `${key} ${stats[key]}`);
+        if (leaked.length > 0) {
+          throw new Error(`Leaked after unmount: ${leaked.join(', ')}`);
+        }
+
+        const done = cycle + 1;
+        this.setState({
+          cycle: done,
+          log:
+            `Cycle ${done}/${CYCLES}: mount ${Math.round(mountTime / done)}` +
+            `ms, unmount ${Math.round(unmountTime / done)}ms average`,
+        });
+      }
+      this.finish(
+        `PASS: mount ${Math.round(mountTime / CYCLES)}ms, unmount ` +
+          `${Math.round(unmountTime / CYCLES)}ms average, registry and ` +
+          'index empty after every unmount'
+      );
+    } catch (e) {
+      this.finish(`FAIL: ${e.message || e}`);
+    }
+  }
+
+  finish(log) {
+    if (!this.unmounted) {
+      this.setState({ running: false, features: [], log });
+    }
+  }
+
+  renderFeature(feature) {
+    const { key, type, latitude, longitude } = feature;
+    const onPress = () => this.onFeaturePress();
+    if (type === 'marker') {
+      return (
+        <Marker
+          key={key}
+          identifier={key}
+          coordinate={{ latitude, longitude }}
+          onPress={onPress}
+        />
+      );
+    }
+    if (type === 'polyline') {
+      return (
+        <Polyline
+          key={key}
+          identifier={key}
+          coordinates={[
+            { latitude, longitude },
+            {
+              latitude: latitude + SPACING / 2,
+              longitude: longitude + SPACING / 2,
+            },
+          ]}
+          strokeWidth={2}
+          tappable
+          onPress={onPress}
+        />
+      );
+    }
+    return (
+      <Polygon
+        key={key}
+        identifier={key}
+        coordinates={[
+          { latitude, longitude },
+          { latitude: latitude + SPACING / 2, longitude },
+          { latitude, longitude: longitude + SPACING / 2 },
+        ]}
+        fillColor="rgba(255, 0, 0, 0.5)"
+        tappable
+        onPress={onPress}
+      />
+    );
+  }
+
+  render() {
+    return (
+      <View style={styles.container}>
+        <MapView
+          ref={ref => {
+            this.map = ref;
+          }}
+          provider={this.props.provider}
+          style={styles.map}
+          initialRegion={{
+            latitude: LATITUDE,
+            longitude: LONGITUDE,
+            latitudeDelta: LATITUDE_DELTA,
+            longitudeDelta: LONGITUDE_DELTA,
+          }}
+        >
+          {this.state.features.map(feature => this.renderFeature(feature))}
+        </MapView>
+        <View style={styles.bubble}>
+          <Text>{this.state.log}</Text>
+          <Text>{`Feature presses: ${this.state.presses}`}</Text>
+        </View>
+        <View style={styles.buttonContainer}>
+          <TouchableOpacity
+            onPress={() => this.start()}
+            style={[styles.bubble, styles.button]}
+          >
+            <Text>{this.state.running ? 'Running...' : 'Start'}</Text>
+          </TouchableOpacity>
+        </View>
+      </View>
+    );
+  }
+}
+
+FeatureStressTest.propTypes = {
+  provider: ProviderPropType,
+};
+
+const styles = StyleSheet.create({
+  container: {
+    ...StyleSheet.absoluteFillObject,
+    justifyContent: 'flex-end',
+    alignItems: 'center',
+  },
+  map: {
+    ...StyleSheet.absoluteFillObject,
+  },
+  bubble: {
+    backgroundColor: 'rgba(255,255,255,0.7)',
+    paddingHorizontal: 18,
+    paddingVertical: 12,
+    borderRadius: 20,
+  },
+  button: {
+    width: 120,
+    paddingHorizontal: 12,
+    alignItems: 'center',
+    marginHorizontal: 10,
+  },
+  buttonContainer: {
+    flexDirection: 'row',
+    marginVertical: 20,
+    backgroundColor: 'transparent',
+  },
+});
+
+export default FeatureStressTest;
@@ -0,0 +1,104 @@
+import React from 'react';
+import { StyleSheet, View, Text, Dimensions } from 'react-native';
+
+import MapView, { Marker, ProviderPropType } from 'react-native-maps';
+
+const { width, height } = Dimensions.get('window');
+
+const ASPECT_RATIO = width / height;
+const LATITUDE = 37.78825;
+const LONGITUDE = -122.4324;
+const LATITUDE_DELTA = 0.0922;
+const LONGITUDE_DELTA = LATITUDE_DELTA * ASPECT_RATIO;
+const MARKER_COUNT = 500;
+
+const LABEL_STYLE = {
+  fontSize: 13,
+  fontWeight: 'bold',
+  color: '#222222',
+  backgroundColor: 'white',
+  borderColor: '#dddddd',
+  borderWidth: 1,
+  paddingHorizontal: 8,
+  paddingVertical: 4,
+  cornerRadius: 14,
+};
+
+function generateMarkers() {
+  const markers = [];
+  for (let i = 0; i < MARKER_COUNT; i++) {
+    markers.push({
+      key: `label-${i}`,
+      coordinate: {
+        latitude: LATITUDE + (Math.random() - 0.5) * LATITUDE_DELTA,
+        longitude: LONGITUDE + (Math.random() - 0.5) * LONGITUDE_DELTA,
+      },
+      // few distinct prices, so most markers share a label bitmap
+      price: `$${50 + 10 * Math.floor(Math.random() * 20)}`,
+    });
+  }
+  return markers;
+}
+
+class LabelMarkers extends React.Component {
+  constructor(props) {
+    super(props);
+
+    this.state = {
+      markers: generateMarkers(),
+    };
+  }
+
+  render() {
+    return (
+      <View style={styles.container}>
+        <MapView
+          provider={this.props.provider}
+          style={styles.map}
+          initialRegion={{
+            latitude: LATITUDE,
+            longitude: LONGITUDE,
+            latitudeDelta: LATITUDE_DELTA,
+            longitudeDelta: LONGITUDE_DELTA,
+          }}
+        >
+          {this.state.markers.map(marker => (
+            <Marker
+              key={marker.key}
+              coordinate={marker.coordinate}
+              anchor={{ x: 0.5, y: 0.5 }}
+              label={{ ...LABEL_STYLE, text: marker.price }}
+            />
+          ))}
+        </MapView>
+        <View style={styles.bubble}>
+          <Text>{`${MARKER_COUNT} native label markers`}</Text>
+        </View>
+      </View>
+    );
+  }
+}
+
+LabelMarkers.propTypes = {
+  provider: ProviderPropType,
+};
+
+const styles = StyleSheet.create({
+  container: {
+    ...StyleSheet.absoluteFillObject,
+    justifyContent: 'flex-end',
+    alignItems: 'center',
+  },
+  map: {
+    ...StyleSheet.absoluteFillObject,
+  },
+  bubble: {
+    backgroundColor: 'rgba(255,255,255,0.7)',
+    paddingHorizontal: 18,
+    paddingVertical: 12,
+    borderRadius: 20,
+    marginVertical: 20,
+  },
+});
+
+export default LabelMarkers;
@@ -0,0 +1,171 @@
+import React from 'react';
+import { StyleSheet, View, Text, TouchableOpacity } from 'react-native';
+
+import MapView, { ProviderPropType } from 'react-native-maps';
+
+const REGION = {
+  latitude: 37.78825,
+  longitude: -122.4324,
+  latitudeDelta: 0.0922,
+  longitudeDelta: 0.0421,
+};
+
+// Props a component may set that differ from what a new Google map starts
+// with, the reused map must not keep any of them.
+const CUSTOM_PROPS = {
+  mapType: 'satellite',
+  scrollEnabled: false,
+  zoomEnabled: false,
+  rotateEnabled: false,
+  pitchEnabled: false,
+  zoomControlEnabled: false,
+  showsCompass: false,
+  showsBuildings: false,
+  showsIndoors: false,
+  showsTraffic: true,
+  toolbarEnabled: false,
+  minZoomLevel: 3,
+  maxZoomLevel: 5,
+};
+
+// Checks that a map taken from the view pool after a component with
+// non-default props dropped it has the same settings as a new map.
+class MapPoolRecycleTest extends React.Component {
+  constructor(props) {
+    super(props);
+
+    this.state = {
+      step: null,
+      running: false,
+      log: 'Compares a recycled pooled map with a new one',
+    };
+    this.onMapReady = null;
+  }
+
+  componentWillUnmount() {
+    this.unmounted = true;
+    MapView.setViewPoolSize(0);
+  }
+
+  // Mounts a map for the step and resolves with it once it is ready.
+  mountMap(step) {
+    return new Promise(resolve => {
+      this.onMapReady = () => {
+        this.onMapReady = null;
+        resolve(this.map);
+      };
+      this.setState({ step });
+    });
+  }
+
+  unmountMap() {
+    return new Promise(resolve => this.setState({ step: null }, resolve));
+  }
+
+  async start() {
+    if (this.state.running) {
+      return;
+    }
+    this.setState({ running: true, log: 'Running...' });
+
+    try {
+      // a new map, nothing is pooled
+      MapView.setViewPoolSize(0);
+      const fresh = await (await this.mountMap('fresh')).getMapSettings();
+
+      // a new map with custom props that is dropped into the pool, the pool
+      // size is set in the same batch so that no prewarmed map takes its place
+      await this.mountMap('custom');
+      MapView.setViewPoolSize(1);
+      await this.unmountMap();
+
+      // the next map is the recycled one
+      const reused = await (await this.mountMap('reused')).getMapSettings();
+
+      const differences = Object.keys(fresh)
+        .filter(key => fresh[key] !== reused[key])
+        .map(key => `${key}: ${reused[key]} instead of ${fresh[key]}`);
+      this.finish(
+        differences.length === 0
+          ? 'PASS: the recycled map matches a new one'
+          : `FAIL: ${differences.join(', ')}`
+      );
+    } catch (e) {
+      this.finish(`FAIL: ${e.message || e}`);
+    } finally {
+      MapView.setViewPoolSize(0);
+    }
+  }
+
+  finish(log) {
+    if (!this.unmounted) {
+      this.setState({ running: false, step: null, log });
+    }
+  }
+
+  render() {
+    const { step } = this.state;
+    return (
+      <View style={styles.container}>
+        {step && (
+          <MapView
+            key={step}
+            ref={ref => {
+              this.map = ref;
+            }}
+            provider={this.props.provider}
+            style={styles.map}
+            initialRegion={REGION}
+            onMapReady={() => this.onMapReady && this.onMapReady()}
+            {...(step === 'custom' ? CUSTOM_PROPS : {})}
+          />
+        )}
+        <View style={styles.bubble}>
+          <Text>{this.state.log}</Text>
+        </View>
+        <View style={styles.buttonContainer}>
+          <TouchableOpacity
+            onPress={() => this.start()}
+            style={[styles.bubble, styles.button]}
+          >
+            <Text>{this.state.running ? 'Running...' : 'Start'}</Text>
+          </TouchableOpacity>
+        </View>
+      </View>
+    );
+  }
+}
+
+MapPoolRecycleTest.propTypes = {
+  provider: ProviderPropType,
+};
+
+const styles = StyleSheet.create({
+  container: {
+    ...StyleSheet.absoluteFillObject,
+    justifyContent: 'flex-end',
+    alignItems: 'center',
+  },
+  map: {
+    ...StyleSheet.absoluteFillObject,
+  },
+  bubble: {
+    backgroundColor: 'rgba(255,255,255,0.7)',
+    paddingHorizontal: 18,
+    paddingVertical: 12,
+    borderRadius: 20,
+  },
+  button: {
+    width: 120,
+    paddingHorizontal: 12,
+    alignItems: 'center',
+    marginHorizontal: 10,
+  },
+  buttonContainer: {
+    flexDirection: 'row',
+    marginVertical: 20,
+    backgroundColor: 'transparent',
+  },
+});
+
+export default MapPoolRecycleTest;
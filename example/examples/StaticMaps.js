@@ -0,0 +1,160 @@
+import React from 'react';
+import {
+  StyleSheet,
+  View,
+  Text,
+  FlatList,
+  Image,
+  TouchableOpacity,
+} from 'react-native';
+
+import MapView, { ProviderPropType } from 'react-native-maps';
+
+const LATITUDE = 37.78825;
+const LONGITUDE = -122.4324;
+const LATITUDE_DELTA = 0.02;
+const LONGITUDE_DELTA = 0.02;
+const THUMBNAIL_COUNT = 50;
+const THUMBNAIL_SIZE = 100;
+
+function generateRequests() {
+  const requests = [];
+  for (let i = 0; i < THUMBNAIL_COUNT; i++) {
+    const latitude = LATITUDE + (i % 10) * LATITUDE_DELTA;
+    const longitude = LONGITUDE + Math.floor(i / 10) * LONGITUDE_DELTA;
+    requests.push({
+      id: `thumbnail-${i}`,
+      width: THUMBNAIL_SIZE,
+      height: THUMBNAIL_SIZE,
+      region: {
+        latitude,
+        longitude,
+        latitudeDelta: LATITUDE_DELTA,
+        longitudeDelta: LONGITUDE_DELTA,
+      },
+      markers: [{ coordinate: { latitude, longitude }, pinColor: 'teal' }],
+    });
+  }
+  return requests;
+}
+
+class StaticMaps extends React.Component {
+  constructor(props) {
+    super(props);
+
+    this.state = {
+      thumbnails: [],
+      running: false,
+      log: `Renders ${THUMBNAIL_COUNT} thumbnails with one hidden map`,
+    };
+  }
+
+  componentWillUnmount() {
+    this.unmounted = true;
+  }
+
+  start() {
+    if (this.state.running) {
+      return;
+    }
+    const started = Date.now();
+    this.setState({ running: true, thumbnails: [] });
+    MapView.renderStaticMaps(generateRequests(), progress => {
+      if (!this.unmounted) {
+        this.setState({
+          thumbnails: [...this.state.thumbnails, progress],
+          log: `Rendered ${progress.index + 1}/${progress.total}`,
+        });
+      }
+    })
+      .then(results => {
+        if (!this.unmounted) {
+          this.setState({
+            running: false,
+            log: `Rendered ${results.length} thumbnails in ${Date.now() -
+              started}ms`,
+          });
+        }
+      })
+      .catch(error => {
+        if (!this.unmounted) {
+          this.setState({ running: false, log: `${error}` });
+        }
+      });
+  }
+
+  renderThumbnail({ item }) {
+    if (!item.uri) {
+      return (
+        <View style={styles.thumbnail}>
+          <Text>{item.error}</Text>
+        </View>
+      );
+    }
+    return <Image style={styles.thumbnail} source={{ uri: item.uri }} />;
+  }
+
+  render() {
+    return (
+      <View style={styles.container}>
+        <FlatList
+          style={styles.list}
+          data={this.state.thumbnails}
+          keyExtractor={item => item.id}
+          numColumns={3}
+          renderItem={item => this.renderThumbnail(item)}
+        />
+        <View style={styles.bubble}>
+          <Text>{this.state.log}</Text>
+        </View>
+        <View style={styles.buttonContainer}>
+          <TouchableOpacity
+            onPress={() => this.start()}
+            style={[styles.bubble, styles.button]}
+          >
+            <Text>{this.state.running ? 'Rendering...' : 'Start'}</Text>
+          </TouchableOpacity>
+        </View>
+      </View>
+    );
+  }
+}
+
+StaticMaps.propTypes = {
+  provider: ProviderPropType,
+};
+
+const styles = StyleSheet.create({
+  container: {
+    ...StyleSheet.absoluteFillObject,
+    justifyContent: 'flex-end',
+    alignItems: 'center',
+  },
+  list: {
+    ...StyleSheet.absoluteFillObject,
+  },
+  thumbnail: {
+    width: THUMBNAIL_SIZE,
+    height: THUMBNAIL_SIZE,
+    margin: 4,
+  },
+  bubble: {
+    backgroundColor: 'rgba(255,255,255,0.7)',
+    paddingHorizontal: 18,
+    paddingVertical: 12,
+    borderRadius: 20,
+  },
+  button: {
+    width: 120,
+    paddingHorizontal: 12,
+    alignItems: 'center',
+    marginHorizontal: 10,
+  },
+  buttonContainer: {
+    flexDirection: 'row',
+    marginVertical: 20,
+    backgroundColor: 'transparent',
+  },
+});
+
+export default StaticMaps;
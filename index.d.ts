@@ -105,12 +105,21 @@ declare module "react-native-maps" {
     height?: number;
     /** __iOS only__, optional region to render */
     region?: Region;
-    /** image formats, defaults to 'png' */
-    format?: "png" | "jpg";
-    /** image quality: 0..1 (only relevant for jpg, default: 1) */
+    /** image formats, defaults to 'png', 'webp' is __Android only__ */
+    format?: "png" | "jpg" | "webp";
+    /** image quality: 0..1 (only relevant for jpg and webp, default: 1) */
     quality?: number;
     /** result types, defaults to 'file' */
     result?: "file" | "base64";
+    /** __Android only__, resolve with a SnapshotResult instead of the string */
+    includeEncodeTime?: boolean;
+  }
+
+  export interface SnapshotResult {
+    /** the file uri or base64 encoded image */
+    data: string;
+    /** time spent scaling and encoding the image */
+    encodeTimeMs: number;
   }
 
   /**
@@ -170,6 +179,81 @@ declare module "react-native-maps" {
   export interface KmlMapEvent
     extends NativeSyntheticEvent<{ markers: KmlMarker[] }> {}
 
+  export type TileProviderMetrics = {
+    requests: number;
+    hits: number;
+    misses: number;
+    bytes: number;
+    latency: { mean: number; p50: number; p95: number; p99: number };
+  };
+
+  export type TileMetrics = {
+    urlTile: TileProviderMetrics;
+    wmsTile: TileProviderMetrics;
+    localTile: TileProviderMetrics;
+    gradientPolyline: TileProviderMetrics;
+  };
+
+  export type MapSettings = {
+    mapType: number;
+    buildingsEnabled: boolean;
+    indoorEnabled: boolean;
+    trafficEnabled: boolean;
+    compassEnabled: boolean;
+    scrollGesturesEnabled: boolean;
+    zoomGesturesEnabled: boolean;
+    zoomControlsEnabled: boolean;
+    rotateGesturesEnabled: boolean;
+    tiltGesturesEnabled: boolean;
+    indoorLevelPickerEnabled: boolean;
+    myLocationButtonEnabled: boolean;
+    mapToolbarEnabled: boolean;
+    minZoomLevel: number;
+    maxZoomLevel: number;
+  };
+
+  export type BatchOperation = {
+    command: string;
+    args?: any[];
+    /** identifier of the markers the command is sent to */
+    marker?: string;
+  };
+
+  export type StaticMapRequest = {
+    id?: string;
+    width: number;
+    height: number;
+    region?: Region;
+    camera?: Partial<Camera>;
+    mapType?: MapTypes;
+    customMapStyle?: MapStyleElement[];
+    markers?: { coordinate: LatLng; pinColor?: string }[];
+    polylines?: { coordinates: LatLng[]; strokeColor?: string; strokeWidth?: number }[];
+    polygons?: {
+      coordinates: LatLng[];
+      strokeColor?: string;
+      fillColor?: string;
+      strokeWidth?: number;
+    }[];
+    format?: "png" | "jpg";
+    quality?: number;
+  };
+
+  export type StaticMapResult = {
+    id?: string;
+    uri?: string;
+    error?: string;
+  };
+
+  export type StaticMapProgress = StaticMapResult & {
+    index: number;
+    total: number;
+  };
+
+  export type Geofence =
+    | { id: string; coordinates: LatLng[] }
+    | { id: string; center: LatLng; radius: number };
+
   type MapTypes =
     | "standard"
     | "satellite"
@@ -220,6 +304,9 @@ declare module "react-native-maps" {
 
     onMapReady?: () => void;
     onKmlReady?: (values: KmlMapEvent) => void;
+    onKmlProgress?: (
+      event: NativeSyntheticEvent<{ loaded: number; total: number }>
+    ) => void;
     onRegionChange?: (region: Region) => void;
     onRegionChangeComplete?: (region: Region) => void;
     onPress?: (event: MapEvent) => void;
@@ -245,9 +332,41 @@ declare module "react-native-maps" {
     minZoomLevel?: number;
     maxZoomLevel?: number;
     kmlSrc?: string;
+
+    regionChangeThrottleMs?: number;
+    regionChangeMinDelta?: number;
+    dragEventThrottleMs?: number;
+
+    tileMetricsInterval?: number;
+    onTileMetrics?: (
+      event: NativeSyntheticEvent<{ metrics: TileMetrics }>
+    ) => void;
+
+    userLocationDistanceFilter?: number;
+    userLocationMinIntervalMs?: number;
+    userLocationMaxAccuracy?: number;
+
+    geofences?: Geofence[];
+    onGeofenceTransition?: (
+      event: NativeSyntheticEvent<{
+        id: string;
+        transition: "enter" | "exit";
+        coordinate: LatLng;
+      }>
+    ) => void;
   }
 
   export default class MapView extends React.Component<MapViewProps, any> {
+    static setViewPoolSize(size: number): void;
+    static prefetchMarkerImages(
+      sources: Array<string | ImageURISource | ImageRequireSource>,
+      size?: { width: number; height: number },
+      imageConfig?: "ARGB_8888" | "RGB_565"
+    ): Promise<{ loaded: number; failed: number }>;
+    static renderStaticMaps(
+      requests: StaticMapRequest[],
+      onProgress?: (progress: StaticMapProgress) => void
+    ): Promise<StaticMapResult[]>;
     getCamera(): Promise<Camera>;
     setCamera(camera: Partial<Camera>): void;
     animateCamera(camera: Partial<Camera>, opts?: { duration?: number }): void;
@@ -270,11 +389,30 @@ declare module "react-native-maps" {
       coordinates?: LatLng[],
       options?: { edgePadding?: EdgePadding; animated?: boolean }
     ): void;
+    executeBatch(operations: BatchOperation[]): void;
     setMapBoundaries(northEast: LatLng, southWest: LatLng): void;
     getMapBoundaries(): Promise<{ northEast: LatLng; southWest: LatLng }>;
+    takeSnapshot(options: SnapshotOptions & { includeEncodeTime: true }): Promise<SnapshotResult>;
     takeSnapshot(options?: SnapshotOptions): Promise<string>;
     pointForCoordinate(coordinate: LatLng): Promise<Point>;
     coordinateForPoint(point: Point): Promise<LatLng>;
+    pointsForCoordinates(coordinates: number[]): Promise<number[]>;
+    coordinatesForPoints(points: number[]): Promise<number[]>;
+    getFeaturesInRegion(
+      bounds: { northEast: LatLng; southWest: LatLng },
+      types?: Array<"marker" | "polyline" | "polygon">
+    ): Promise<{ markers?: string[]; polylines?: string[]; polygons?: string[] }>;
+    getTileMetrics(reset?: boolean): Promise<TileMetrics>;
+    getRegionChangeStats(
+      reset?: boolean
+    ): Promise<{ delivered: number; dropped: number; coalesced: number }>;
+    getMapSettings(): Promise<MapSettings>;
+    getFeatureStats(): Promise<{
+      registered: number;
+      indexed: number;
+      pendingAdds: number;
+      pendingRemoves: number;
+    }>;
   }
 
   export class MapViewAnimated extends MapView {}
@@ -283,6 +421,20 @@ declare module "react-native-maps" {
   //  Marker
   // =======================================================================
 
+  export interface MarkerLabel {
+    text: string;
+    fontSize?: number;
+    fontFamily?: string;
+    fontWeight?: string | number;
+    color?: string;
+    backgroundColor?: string;
+    borderColor?: string;
+    borderWidth?: number;
+    paddingHorizontal?: number;
+    paddingVertical?: number;
+    cornerRadius?: number;
+  }
+
   export interface MarkerProps extends ViewProperties {
     identifier?: string;
     reuseIdentifier?: string;
@@ -290,6 +442,9 @@ declare module "react-native-maps" {
     description?: string;
     image?: ImageURISource | ImageRequireSource;
     icon?: ImageURISource | ImageRequireSource;
+    imageSize?: { width: number; height: number };
+    imageConfig?: "ARGB_8888" | "RGB_565";
+    label?: MarkerLabel;
     opacity?: number;
     pinColor?: string;
     coordinate: LatLng | AnimatedRegion;
@@ -373,6 +528,7 @@ declare module "react-native-maps" {
     coordinates: LatLng[];
     onPress?: (event: MapEvent) => void;
     tappable?: boolean;
+    identifier?: string;
     fillColor?: string;
     strokeWidth?: number;
     strokeColor?: string;
@@ -397,6 +553,7 @@ declare module "react-native-maps" {
     holes?: LatLng[][];
     onPress?: (event: MapEvent) => void;
     tappable?: boolean;
+    identifier?: string;
     strokeWidth?: number;
     strokeColor?: string;
     fillColor?: string;
@@ -511,6 +668,44 @@ declare module "react-native-maps" {
 
   export class Heatmap extends React.Component<MapHeatmapProps, any> {}
 
+  // =======================================================================
+  //  GeojsonLayer
+  // =======================================================================
+
+  export interface GeojsonStyleRule {
+    property: string;
+    value?: string | number | boolean;
+    strokeWidth?: number;
+    strokeColor?: string;
+    fillColor?: string;
+    pinColor?: string;
+    zIndex?: number;
+  }
+
+  export interface GeojsonPressEvent {
+    action: 'geojson-press';
+    id?: string;
+    properties: { [key: string]: any };
+    coordinate: LatLng;
+    position: Point;
+  }
+
+  export interface MapGeojsonLayerProps extends ViewProperties {
+    src?: string;
+    geojson?: object | string;
+    strokeWidth?: number;
+    strokeColor?: string;
+    fillColor?: string;
+    pinColor?: string;
+    zIndex?: number;
+    tappable?: boolean;
+    styleRules?: GeojsonStyleRule[];
+    onPress?: (event: MapEvent<GeojsonPressEvent>) => void;
+    onLoad?: (event: MapEvent<{ features: number }>) => void;
+  }
+
+  export class GeojsonLayer extends React.Component<MapGeojsonLayerProps, any> {}
+
   // =======================================================================
   //  Constants
   // =======================================================================
@@ -19,6 +19,9 @@ export {
 } from './lib/components/MapCalloutSubview.js';
 export { default as AnimatedRegion } from './lib/components/AnimatedRegion.js';
 export { default as Geojson } from './lib/components/Geojson.js';
+export {
+  default as GeojsonLayer,
+} from './lib/components/MapGeojsonLayer.js';
 
 export { Marker, Overlay };
 export { Animated, MAP_TYPES, ProviderPropType };
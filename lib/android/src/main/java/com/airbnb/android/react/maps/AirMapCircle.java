@@ -6,9 +6,18 @@ import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.model.Circle;
 import com.google.android.gms.maps.model.CircleOptions;
 import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.maps.android.SphericalUtil;
 
 public class AirMapCircle extends AirMapFeature {
 
+  private static final int DIRTY_CENTER = 1;
+  private static final int DIRTY_RADIUS = 1 << 1;
+  private static final int DIRTY_FILL_COLOR = 1 << 2;
+  private static final int DIRTY_STROKE_COLOR = 1 << 3;
+  private static final int DIRTY_STROKE_WIDTH = 1 << 4;
+  private static final int DIRTY_Z_INDEX = 1 << 5;
+
   private CircleOptions circleOptions;
   private Circle circle;
 
@@ -18,6 +27,7 @@ public class AirMapCircle extends AirMapFeature {
   private int fillColor;
   private float strokeWidth;
   private float zIndex;
+  private LatLngBounds bounds;
 
   public AirMapCircle(Context context) {
     super(context);
@@ -25,42 +35,44 @@ public class AirMapCircle extends AirMapFeature {
 
   public void setCenter(LatLng center) {
     this.center = center;
-    if (circle != null) {
+    if (canUpdate(DIRTY_CENTER)) {
       circle.setCenter(this.center);
     }
+    updateBounds();
   }
 
   public void setRadius(double radius) {
     this.radius = radius;
-    if (circle != null) {
+    if (canUpdate(DIRTY_RADIUS)) {
       circle.setRadius(this.radius);
     }
+    updateBounds();
   }
 
   public void setFillColor(int color) {
     this.fillColor = color;
-    if (circle != null) {
+    if (canUpdate(DIRTY_FILL_COLOR)) {
       circle.setFillColor(color);
     }
   }
 
   public void setStrokeColor(int color) {
     this.strokeColor = color;
-    if (circle != null) {
+    if (canUpdate(DIRTY_STROKE_COLOR)) {
       circle.setStrokeColor(color);
     }
   }
 
   public void setStrokeWidth(float width) {
     this.strokeWidth = width;
-    if (circle != null) {
+    if (canUpdate(DIRTY_STROKE_WIDTH)) {
       circle.setStrokeWidth(width);
     }
   }
 
   public void setZIndex(float zIndex) {
     this.zIndex = zIndex;
-    if (circle != null) {
+    if (canUpdate(DIRTY_Z_INDEX)) {
       circle.setZIndex(zIndex);
     }
   }
@@ -83,11 +95,39 @@ public class AirMapCircle extends AirMapFeature {
     return options;
   }
 
+  private void updateBounds() {
+    if (center == null) {
+      return;
+    }
+    bounds = new LatLngBounds.Builder()
+        .include(SphericalUtil.computeOffset(center, radius, 0))
+        .include(SphericalUtil.computeOffset(center, radius, 90))
+        .include(SphericalUtil.computeOffset(center, radius, 180))
+        .include(SphericalUtil.computeOffset(center, radius, 270))
+        .build();
+    notifyGeometryChange();
+  }
+
+  @Override
+  public LatLngBounds getGeometryBounds() {
+    return bounds;
+  }
+
   @Override
   public Object getFeature() {
     return circle;
   }
 
+  @Override
+  protected void applyDeferredUpdates(int fields) {
+    if ((fields & DIRTY_CENTER) != 0) circle.setCenter(center);
+    if ((fields & DIRTY_RADIUS) != 0) circle.setRadius(radius);
+    if ((fields & DIRTY_FILL_COLOR) != 0) circle.setFillColor(fillColor);
+    if ((fields & DIRTY_STROKE_COLOR) != 0) circle.setStrokeColor(strokeColor);
+    if ((fields & DIRTY_STROKE_WIDTH) != 0) circle.setStrokeWidth(strokeWidth);
+    if ((fields & DIRTY_Z_INDEX) != 0) circle.setZIndex(zIndex);
+  }
+
   @Override
   public void addToMap(GoogleMap map) {
     circle = map.addCircle(getCircleOptions());
@@ -4,8 +4,23 @@ import android.content.Context;
 
 import com.facebook.react.views.view.ReactViewGroup;
 import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+public abstract class AirMapFeature extends ReactViewGroup implements FeatureIndex.Indexable {
+
+  public interface OnFeatureChangeListener {
+    void onGeometryChange(AirMapFeature feature);
+
+    void onIdentifierChange(AirMapFeature feature);
+
+    void onNativeObjectChange(AirMapFeature feature);
+  }
+
+  private OnFeatureChangeListener featureChangeListener;
+  private boolean updatesDeferred = false;
+  // fields changed while updates were deferred, see canUpdate
+  private int deferredFields;
 
-public abstract class AirMapFeature extends ReactViewGroup {
   public AirMapFeature(Context context) {
     super(context);
   }
@@ -15,4 +30,110 @@ public abstract class AirMapFeature extends ReactViewGroup {
   public abstract void removeFromMap(GoogleMap map);
 
   public abstract Object getFeature();
+
+  public String getIdentifier() {
+    return null;
+  }
+
+  /**
+   * @return bounds of the feature's geometry, or null for features that aren't spatially indexed.
+   */
+  @Override
+  public LatLngBounds getGeometryBounds() {
+    return null;
+  }
+
+  @Override
+  public boolean intersects(LatLngBounds bounds) {
+    LatLngBounds geometryBounds = getGeometryBounds();
+    return geometryBounds != null && LatLngBoundsUtils.BoundsIntersect(geometryBounds, bounds);
+  }
+
+  public void setOnFeatureChangeListener(OnFeatureChangeListener listener) {
+    this.featureChangeListener = listener;
+  }
+
+  protected void notifyGeometryChange() {
+    if (featureChangeListener != null) {
+      featureChangeListener.onGeometryChange(this);
+    }
+  }
+
+  protected void notifyIdentifierChange() {
+    if (featureChangeListener != null) {
+      featureChangeListener.onIdentifierChange(this);
+    }
+  }
+
+  /**
+   * To be called when the object returned by {@link #getFeature()} is replaced while the feature
+   * is on the map.
+   */
+  protected void notifyNativeObjectChange() {
+    if (featureChangeListener != null) {
+      featureChangeListener.onNativeObjectChange(this);
+    }
+  }
+
+  /**
+   * Set by the map while it is paused. Features that support it keep prop changes to themselves
+   * until {@link #applyDeferredUpdates()}, instead of updating their native object.
+   */
+  void setUpdatesDeferred(boolean updatesDeferred) {
+    if (this.updatesDeferred == updatesDeferred) {
+      return;
+    }
+    this.updatesDeferred = updatesDeferred;
+    if (!updatesDeferred) {
+      applyDeferredUpdates();
+    }
+  }
+
+  /**
+   * Stops deferring updates without applying the deferred ones, for a feature that was just
+   * removed from the map.
+   */
+  void discardDeferredUpdates() {
+    updatesDeferred = false;
+    deferredFields = 0;
+  }
+
+  protected boolean areUpdatesDeferred() {
+    return updatesDeferred;
+  }
+
+  /**
+   * To be called by setters before writing the given fields to the native object.
+   *
+   * @return whether the native object exists and can be updated now. While updates are deferred
+   * the fields are recorded instead and passed to {@link #applyDeferredUpdates(int)} once updates
+   * resume, so every field is written once with its last value.
+   */
+  protected boolean canUpdate(int fields) {
+    if (getFeature() == null) {
+      return false;
+    }
+    if (updatesDeferred) {
+      deferredFields |= fields;
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Brings the native object up to date with the changes made while updates were deferred.
+   */
+  protected void applyDeferredUpdates() {
+    int fields = deferredFields;
+    deferredFields = 0;
+    if (fields != 0 && getFeature() != null) {
+      applyDeferredUpdates(fields);
+    }
+  }
+
+  /**
+   * Writes the fields recorded by {@link #canUpdate(int)} to the native object.
+   */
+  protected void applyDeferredUpdates(int fields) {
+  }
 }
@@ -0,0 +1,364 @@
+package com.airbnb.android.react.maps;
+
+import android.content.Context;
+import android.os.AsyncTask;
+import android.view.Choreographer;
+
+import com.facebook.common.logging.FLog;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeMap;
+import com.facebook.react.common.ReactConstants;
+import com.facebook.react.uimanager.events.RCTEventEmitter;
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.Marker;
+import com.google.android.gms.maps.model.MarkerOptions;
+import com.google.android.gms.maps.model.Polygon;
+import com.google.android.gms.maps.model.PolygonOptions;
+import com.google.android.gms.maps.model.Polyline;
+import com.google.android.gms.maps.model.PolylineOptions;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A whole GeoJSON document rendered as one map feature. The document is parsed on a background
+ * thread and its geometries are added to the map in batches, one batch per frame.
+ */
+public class AirMapGeoJson extends AirMapFeature {
+
+  private static final int FEATURES_PER_FRAME = 100;
+
+  public static class StyleRule {
+    public String property;
+    // null matches any feature that has the property
+    public String value;
+    public Integer strokeColor;
+    public Integer fillColor;
+    public Float strokeWidth;
+    public Float zIndex;
+    public Float markerHue;
+  }
+
+  private String src;
+  private String geojson;
+  private int strokeColor;
+  private int fillColor;
+  private float strokeWidth;
+  private float zIndex;
+  private float markerHue;
+  private boolean tappable;
+  private List<StyleRule> styleRules = new ArrayList<>();
+
+  private GoogleMap map;
+  private GeoJsonLoader loader;
+  private List<GeoJsonParser.Feature> features;
+  private int addedCount = 0;
+  private boolean reloadScheduled = false;
+  private final Map<Object, GeoJsonParser.Feature> featureMap = new HashMap<>();
+
+  private final Choreographer.FrameCallback reloadCallback = new Choreographer.FrameCallback() {
+    @Override
+    public void doFrame(long frameTimeNanos) {
+      reloadScheduled = false;
+      reload();
+    }
+  };
+
+  private final Choreographer.FrameCallback addBatchCallback = new Choreographer.FrameCallback() {
+    @Override
+    public void doFrame(long frameTimeNanos) {
+      addBatch();
+    }
+  };
+
+  public AirMapGeoJson(Context context) {
+    super(context);
+  }
+
+  public void setSrc(String src) {
+    this.src = src;
+    scheduleReload();
+  }
+
+  public void setGeojson(String geojson) {
+    this.geojson = geojson;
+    scheduleReload();
+  }
+
+  public void setStrokeColor(int strokeColor) {
+    this.strokeColor = strokeColor;
+    applyStyles();
+  }
+
+  public void setFillColor(int fillColor) {
+    this.fillColor = fillColor;
+    applyStyles();
+  }
+
+  public void setStrokeWidth(float strokeWidth) {
+    this.strokeWidth = strokeWidth;
+    applyStyles();
+  }
+
+  public void setZIndex(float zIndex) {
+    this.zIndex = zIndex;
+    applyStyles();
+  }
+
+  public void setMarkerHue(float markerHue) {
+    this.markerHue = markerHue;
+    applyStyles();
+  }
+
+  public void setTappable(boolean tappable) {
+    this.tappable = tappable;
+    applyStyles();
+  }
+
+  public void setStyleRules(List<StyleRule> styleRules) {
+    this.styleRules = styleRules;
+    applyStyles();
+  }
+
+  public GeoJsonParser.Feature getFeatureFor(Object nativeObject) {
+    return featureMap.get(nativeObject);
+  }
+
+  public WritableMap getProperties(GeoJsonParser.Feature feature) {
+    return Arguments.makeNativeMap(feature.properties);
+  }
+
+  // Several props usually arrive in the same batch, so only reload once per frame.
+  private void scheduleReload() {
+    if (!reloadScheduled) {
+      reloadScheduled = true;
+      Choreographer.getInstance().postFrameCallback(reloadCallback);
+    }
+  }
+
+  private void reload() {
+    if (loader != null) {
+      loader.cancel(true);
+      loader = null;
+    }
+    clearFromMap();
+    features = null;
+
+    if (geojson == null && src == null) {
+      return;
+    }
+    loader = new GeoJsonLoader(src, geojson);
+    loader.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+  }
+
+  private void onFeaturesLoaded(List<GeoJsonParser.Feature> features) {
+    this.features = features;
+    startAdding();
+  }
+
+  private void startAdding() {
+    if (map == null || features == null) {
+      return;
+    }
+    addedCount = 0;
+    Choreographer.getInstance().removeFrameCallback(addBatchCallback);
+    Choreographer.getInstance().postFrameCallback(addBatchCallback);
+  }
+
+  private void addBatch() {
+    if (map == null || features == null) {
+      return;
+    }
+
+    int end = Math.min(addedCount + FEATURES_PER_FRAME, features.size());
+    for (; addedCount < end; addedCount++) {
+      addFeatureToMap(features.get(addedCount));
+    }
+
+    if (addedCount < features.size()) {
+      Choreographer.getInstance().postFrameCallback(addBatchCallback);
+      return;
+    }
+
+    WritableMap event = new WritableNativeMap();
+    event.putInt("features", features.size());
+    ((ReactContext) getContext()).getJSModule(RCTEventEmitter.class)
+        .receiveEvent(getId(), "onLoad", event);
+  }
+
+  private void addFeatureToMap(GeoJsonParser.Feature feature) {
+    StyleRule rule = findStyleRule(feature);
+
+    for (List<List<LatLng>> rings : feature.polygons) {
+      if (rings.isEmpty() || rings.get(0).isEmpty()) {
+        continue;
+      }
+      PolygonOptions options = new PolygonOptions().addAll(rings.get(0));
+      for (int i = 1; i < rings.size(); i++) {
+        options.addHole(rings.get(i));
+      }
+      Polygon polygon = map.addPolygon(options);
+      applyStyle(polygon, rule);
+      featureMap.put(polygon, feature);
+    }
+
+    for (List<LatLng> line : feature.lines) {
+      if (line.isEmpty()) {
+        continue;
+      }
+      Polyline polyline = map.addPolyline(new PolylineOptions().addAll(line));
+      applyStyle(polyline, rule);
+      featureMap.put(polyline, feature);
+    }
+
+    for (LatLng point : feature.points) {
+      Marker marker = map.addMarker(new MarkerOptions().position(point));
+      applyStyle(marker, rule);
+      featureMap.put(marker, feature);
+    }
+  }
+
+  private void applyStyles() {
+    for (Map.Entry<Object, GeoJsonParser.Feature> entry : featureMap.entrySet()) {
+      StyleRule rule = findStyleRule(entry.getValue());
+      Object object = entry.getKey();
+      if (object instanceof Polygon) {
+        applyStyle((Polygon) object, rule);
+      } else if (object instanceof Polyline) {
+        applyStyle((Polyline) object, rule);
+      } else if (object instanceof Marker) {
+        applyStyle((Marker) object, rule);
+      }
+    }
+  }
+
+  private void applyStyle(Polygon polygon, StyleRule rule) {
+    polygon.setStrokeColor(rule != null && rule.strokeColor != null ? rule.strokeColor : strokeColor);
+    polygon.setFillColor(rule != null && rule.fillColor != null ? rule.fillColor : fillColor);
+    polygon.setStrokeWidth(rule != null && rule.strokeWidth != null ? rule.strokeWidth : strokeWidth);
+    polygon.setZIndex(rule != null && rule.zIndex != null ? rule.zIndex : zIndex);
+    polygon.setClickable(tappable);
+  }
+
+  private void applyStyle(Polyline polyline, StyleRule rule) {
+    polyline.setColor(rule != null && rule.strokeColor != null ? rule.strokeColor : strokeColor);
+    polyline.setWidth(rule != null && rule.strokeWidth != null ? rule.strokeWidth : strokeWidth);
+    polyline.setZIndex(rule != null && rule.zIndex != null ? rule.zIndex : zIndex);
+    polyline.setClickable(tappable);
+  }
+
+  private void applyStyle(Marker marker, StyleRule rule) {
+    float hue = rule != null && rule.markerHue != null ? rule.markerHue : markerHue;
+    marker.setIcon(BitmapDescriptorFactory.defaultMarker(hue));
+    marker.setZIndex(rule != null && rule.zIndex != null ? rule.zIndex : zIndex);
+  }
+
+  private StyleRule findStyleRule(GeoJsonParser.Feature feature) {
+    for (StyleRule rule : styleRules) {
+      if (!feature.properties.containsKey(rule.property)) {
+        continue;
+      }
+      if (rule.value == null ||
+          rule.value.equals(toRuleValue(feature.properties.get(rule.property)))) {
+        return rule;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Normalizes a property value so that the number 1 parsed from json matches the rule "1".
+   */
+  public static String toRuleValue(Object value) {
+    if (value instanceof Double) {
+      double d = (Double) value;
+      if (d == Math.rint(d) && !Double.isInfinite(d)) {
+        return Long.toString((long) d);
+      }
+    }
+    return String.valueOf(value);
+  }
+
+  private void clearFromMap() {
+    Choreographer.getInstance().removeFrameCallback(addBatchCallback);
+    for (Object object : featureMap.keySet()) {
+      if (object instanceof Polygon) {
+        ((Polygon) object).remove();
+      } else if (object instanceof Polyline) {
+        ((Polyline) object).remove();
+      } else if (object instanceof Marker) {
+        ((Marker) object).remove();
+      }
+    }
+    featureMap.clear();
+    addedCount = 0;
+  }
+
+  @Override
+  public Object getFeature() {
+    return features;
+  }
+
+  @Override
+  public void addToMap(GoogleMap map) {
+    this.map = map;
+    startAdding();
+  }
+
+  @Override
+  public void removeFromMap(GoogleMap map) {
+    clearFromMap();
+    this.map = null;
+  }
+
+  private class GeoJsonLoader extends AsyncTask<Void, Void, List<GeoJsonParser.Feature>> {
+    private final String src;
+    private final String geojson;
+
+    GeoJsonLoader(String src, String geojson) {
+      this.src = src;
+      this.geojson = geojson;
+    }
+
+    @Override
+    protected List<GeoJsonParser.Feature> doInBackground(Void... params) {
+      GeoJsonCache cache = GeoJsonCache.getInstance(getContext());
+      InputStream stream = null;
+      try {
+        if (geojson != null) {
+          // the document is in memory already, hashing it is cheap next to parsing it
+          String hash = FileUtil.sha1Hex(geojson.getBytes("UTF-8"));
+          return cache.load(hash, hash, new StringReader(geojson));
+        }
+        stream = FileUtil.openInputStream(getContext(), src);
+        return cache.load(src, FileUtil.getVersion(getContext(), src, stream),
+            new InputStreamReader(stream, "UTF-8"));
+      } catch (Exception e) {
+        FLog.e(ReactConstants.TAG, "Could not load geojson", e);
+        return null;
+      } finally {
+        AirMapModule.closeQuietly(stream);
+      }
+    }
+
+    @Override
+    protected void onPostExecute(List<GeoJsonParser.Feature> features) {
+      if (isCancelled() || loader != this) {
+        return;
+      }
+      loader = null;
+      if (features != null) {
+        onFeaturesLoaded(features);
+      }
+    }
+  }
+}
@@ -0,0 +1,151 @@
+package com.airbnb.android.react.maps;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.os.Build;
+import android.util.DisplayMetrics;
+import android.view.WindowManager;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.common.MapBuilder;
+import com.facebook.react.uimanager.ThemedReactContext;
+import com.facebook.react.uimanager.ViewGroupManager;
+import com.facebook.react.uimanager.annotations.ReactProp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+public class AirMapGeoJsonManager extends ViewGroupManager<AirMapGeoJson> {
+  private final DisplayMetrics metrics;
+
+  public AirMapGeoJsonManager(ReactApplicationContext reactContext) {
+    super();
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+      metrics = new DisplayMetrics();
+      ((WindowManager) reactContext.getSystemService(Context.WINDOW_SERVICE))
+          .getDefaultDisplay()
+          .getRealMetrics(metrics);
+    } else {
+      metrics = reactContext.getResources().getDisplayMetrics();
+    }
+  }
+
+  @Override
+  public String getName() {
+    return "AIRMapGeoJson";
+  }
+
+  @Override
+  public AirMapGeoJson createViewInstance(ThemedReactContext context) {
+    return new AirMapGeoJson(context);
+  }
+
+  @ReactProp(name = "src")
+  public void setSrc(AirMapGeoJson view, @Nullable String src) {
+    view.setSrc(src);
+  }
+
+  @ReactProp(name = "geojson")
+  public void setGeojson(AirMapGeoJson view, @Nullable String geojson) {
+    view.setGeojson(geojson);
+  }
+
+  @ReactProp(name = "strokeWidth", defaultFloat = 1f)
+  public void setStrokeWidth(AirMapGeoJson view, float widthInPoints) {
+    float widthInScreenPx = metrics.density * widthInPoints; // done for parity with iOS
+    view.setStrokeWidth(widthInScreenPx);
+  }
+
+  @ReactProp(name = "fillColor", defaultInt = Color.RED, customType = "Color")
+  public void setFillColor(AirMapGeoJson view, int color) {
+    view.setFillColor(color);
+  }
+
+  @ReactProp(name = "strokeColor", defaultInt = Color.RED, customType = "Color")
+  public void setStrokeColor(AirMapGeoJson view, int color) {
+    view.setStrokeColor(color);
+  }
+
+  @ReactProp(name = "pinColor", defaultInt = Color.RED, customType = "Color")
+  public void setPinColor(AirMapGeoJson view, int pinColor) {
+    view.setMarkerHue(toHue(pinColor));
+  }
+
+  @ReactProp(name = "tappable", defaultBoolean = false)
+  public void setTappable(AirMapGeoJson view, boolean tappable) {
+    view.setTappable(tappable);
+  }
+
+  @ReactProp(name = "zIndex", defaultFloat = 1.0f)
+  public void setZIndex(AirMapGeoJson view, float zIndex) {
+    view.setZIndex(zIndex);
+  }
+
+  @ReactProp(name = "styleRules")
+  public void setStyleRules(AirMapGeoJson view, @Nullable ReadableArray styleRules) {
+    List<AirMapGeoJson.StyleRule> rules = new ArrayList<>();
+    if (styleRules != null) {
+      for (int i = 0; i < styleRules.size(); i++) {
+        rules.add(toStyleRule(styleRules.getMap(i)));
+      }
+    }
+    view.setStyleRules(rules);
+  }
+
+  // colors have already been through processColor on the js side
+  private AirMapGeoJson.StyleRule toStyleRule(ReadableMap map) {
+    AirMapGeoJson.StyleRule rule = new AirMapGeoJson.StyleRule();
+    rule.property = map.getString("property");
+
+    if (map.hasKey("value") && !map.isNull("value")) {
+      switch (map.getType("value")) {
+        case Number:
+          rule.value = AirMapGeoJson.toRuleValue(map.getDouble("value"));
+          break;
+        case Boolean:
+          rule.value = String.valueOf(map.getBoolean("value"));
+          break;
+        default:
+          rule.value = map.getString("value");
+          break;
+      }
+    }
+    if (map.hasKey("strokeColor") && !map.isNull("strokeColor")) {
+      rule.strokeColor = map.getInt("strokeColor");
+    }
+    if (map.hasKey("fillColor") && !map.isNull("fillColor")) {
+      rule.fillColor = map.getInt("fillColor");
+    }
+    if (map.hasKey("strokeWidth") && !map.isNull("strokeWidth")) {
+      rule.strokeWidth = metrics.density * (float) map.getDouble("strokeWidth");
+    }
+    if (map.hasKey("zIndex") && !map.isNull("zIndex")) {
+      rule.zIndex = (float) map.getDouble("zIndex");
+    }
+    if (map.hasKey("pinColor") && !map.isNull("pinColor")) {
+      rule.markerHue = toHue(map.getInt("pinColor"));
+    }
+    return rule;
+  }
+
+  private static float toHue(int color) {
+    float[] hsv = new float[3];
+    Color.colorToHSV(color, hsv);
+    // NOTE: android only supports a hue
+    return hsv[0];
+  }
+
+  @Override
+  @Nullable
+  public Map getExportedCustomDirectEventTypeConstants() {
+    return MapBuilder.of(
+        "onPress", MapBuilder.of("registrationName", "onPress"),
+        "onLoad", MapBuilder.of("registrationName", "onLoad")
+    );
+  }
+}
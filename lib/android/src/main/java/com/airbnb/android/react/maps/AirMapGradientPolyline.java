@@ -55,6 +55,7 @@ public class AirMapGradientPolyline extends AirMapFeature {
     }
     if (map != null) {
       tileOverlay = map.addTileOverlay(createTileOverlayOptions());
+      notifyNativeObjectChange();
     }
   }
 
@@ -65,6 +66,7 @@ public class AirMapGradientPolyline extends AirMapFeature {
     }
     if (map != null) {
       tileOverlay = map.addTileOverlay(createTileOverlayOptions());
+      notifyNativeObjectChange();
     }
   }
 
@@ -82,6 +84,7 @@ public class AirMapGradientPolyline extends AirMapFeature {
     }
     if (map != null) {
       tileOverlay = map.addTileOverlay(createTileOverlayOptions());
+      notifyNativeObjectChange();
     }
   }
 
@@ -165,6 +168,7 @@ public class AirMapGradientPolyline extends AirMapFeature {
       // Because getTile can be called asynchronously by multiple threads, none of the info we keep in the class will be modified
       // (getTile is essentially side-effect-less) :
       // Instead, we create the bitmap, the canvas and the paints specifically for the call to getTile
+      long start = System.nanoTime();
 
       Bitmap bitmap = Bitmap.createBitmap(tileDimension, tileDimension, Bitmap.Config.ARGB_8888);
 
@@ -198,7 +202,10 @@ public class AirMapGradientPolyline extends AirMapFeature {
 
       ByteArrayOutputStream baos = new ByteArrayOutputStream();
       bitmap.compress(Bitmap.CompressFormat.PNG, 100, baos);
-      return new Tile(tileDimension, tileDimension, baos.toByteArray());
+      byte[] data = baos.toByteArray();
+      AirMapTileMetrics.getInstance().get(AirMapTileMetrics.GRADIENT_POLYLINE)
+          .record(start, true, data.length);
+      return new Tile(tileDimension, tileDimension, data);
     }
 
     public void renderTrail(Canvas canvas, Matrix shaderMat, Paint gradientPaint, Paint colorPaint,
@@ -17,4 +17,10 @@ public class AirMapLiteManager extends AirMapManager {
     this.googleMapOptions = new GoogleMapOptions().liteMode(true);
   }
 
+  // pooled views are created with the options of the regular map
+  @Override
+  protected AirMapViewPool getViewPool() {
+    return null;
+  }
+
 }
@@ -16,6 +16,9 @@ import java.io.InputStream;
 
 public class AirMapLocalTile extends AirMapFeature {
 
+    private static final int DIRTY_TILES = 1;
+    private static final int DIRTY_Z_INDEX = 1 << 1;
+
     class AIRMapLocalTileProvider implements TileProvider {
         private static final int BUFFER_SIZE = 16 * 1024;
         private int tileSize;
@@ -29,7 +32,10 @@ public class AirMapLocalTile extends AirMapFeature {
 
         @Override
         public Tile getTile(int x, int y, int zoom) {
+            long start = System.nanoTime();
             byte[] image = readTileImage(x, y, zoom);
+            AirMapTileMetrics.getInstance().get(AirMapTileMetrics.LOCAL_TILE)
+                    .record(start, image != null, image == null ? 0 : image.length);
             return image == null ? TileProvider.NO_TILE : new Tile(this.tileSize, this.tileSize, image);
         }
 
@@ -97,14 +103,14 @@ public class AirMapLocalTile extends AirMapFeature {
         if (tileProvider != null) {
             tileProvider.setPathTemplate(pathTemplate);
         }
-        if (tileOverlay != null) {
+        if (canUpdate(DIRTY_TILES)) {
             tileOverlay.clearTileCache();
         }
     }
 
     public void setZIndex(float zIndex) {
         this.zIndex = zIndex;
-        if (tileOverlay != null) {
+        if (canUpdate(DIRTY_Z_INDEX)) {
             tileOverlay.setZIndex(zIndex);
         }
     }
@@ -136,6 +142,12 @@ public class AirMapLocalTile extends AirMapFeature {
         return tileOverlay;
     }
 
+    @Override
+    protected void applyDeferredUpdates(int fields) {
+        if ((fields & DIRTY_TILES) != 0) tileOverlay.clearTileCache();
+        if ((fields & DIRTY_Z_INDEX) != 0) tileOverlay.setZIndex(zIndex);
+    }
+
     @Override
     public void addToMap(GoogleMap map) {
         this.tileOverlay = map.addTileOverlay(getTileOverlayOptions());
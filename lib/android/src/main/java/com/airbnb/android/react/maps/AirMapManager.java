@@ -2,14 +2,19 @@ package com.airbnb.android.react.maps;
 
 import android.view.View;
 
+import com.facebook.common.logging.FLog;
 import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.JavaOnlyMap;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.common.MapBuilder;
+import com.facebook.react.common.ReactConstants;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
 import com.facebook.react.uimanager.LayoutShadowNode;
+import com.facebook.react.uimanager.ReactStylesDiffMap;
 import com.facebook.react.uimanager.ThemedReactContext;
 import com.facebook.react.uimanager.ViewGroupManager;
 import com.facebook.react.uimanager.annotations.ReactProp;
@@ -18,9 +23,10 @@ import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.GoogleMapOptions;
 import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.LatLngBounds;
-import com.google.android.gms.maps.model.MapStyleOptions;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.annotation.Nullable;
@@ -40,9 +46,10 @@ public class AirMapManager extends ViewGroupManager<AirMapView> {
   private static final int SET_INDOOR_ACTIVE_LEVEL_INDEX = 10;
   private static final int SET_CAMERA = 11;
   private static final int ANIMATE_CAMERA = 12;
+  private static final int EXECUTE_BATCH = 13;
 
 
-  private final Map<String, Integer> MAP_TYPES = MapBuilder.of(
+  static final Map<String, Integer> MAP_TYPES = MapBuilder.of(
       "standard", GoogleMap.MAP_TYPE_NORMAL,
       "satellite", GoogleMap.MAP_TYPE_SATELLITE,
       "hybrid", GoogleMap.MAP_TYPE_HYBRID,
@@ -50,6 +57,40 @@ public class AirMapManager extends ViewGroupManager<AirMapView> {
       "none", GoogleMap.MAP_TYPE_NONE
   );
 
+  // the commands a batch may contain, with the types of their arguments
+  private static final Map<String, ReadableType[]> BATCH_MAP_COMMANDS = new HashMap<>();
+  private static final Map<String, ReadableType[]> BATCH_MARKER_COMMANDS = new HashMap<>();
+
+  static {
+    BATCH_MAP_COMMANDS.put("setCamera", new ReadableType[] {ReadableType.Map});
+    BATCH_MAP_COMMANDS.put("animateCamera",
+        new ReadableType[] {ReadableType.Map, ReadableType.Number});
+    BATCH_MAP_COMMANDS.put("animateToNavigation", new ReadableType[] {
+        ReadableType.Map, ReadableType.Number, ReadableType.Number, ReadableType.Number});
+    BATCH_MAP_COMMANDS.put("animateToRegion",
+        new ReadableType[] {ReadableType.Map, ReadableType.Number});
+    BATCH_MAP_COMMANDS.put("animateToCoordinate",
+        new ReadableType[] {ReadableType.Map, ReadableType.Number});
+    BATCH_MAP_COMMANDS.put("animateToViewingAngle",
+        new ReadableType[] {ReadableType.Number, ReadableType.Number});
+    BATCH_MAP_COMMANDS.put("animateToBearing",
+        new ReadableType[] {ReadableType.Number, ReadableType.Number});
+    BATCH_MAP_COMMANDS.put("fitToElements", new ReadableType[] {ReadableType.Boolean});
+    BATCH_MAP_COMMANDS.put("fitToSuppliedMarkers",
+        new ReadableType[] {ReadableType.Array, ReadableType.Map, ReadableType.Boolean});
+    BATCH_MAP_COMMANDS.put("fitToCoordinates",
+        new ReadableType[] {ReadableType.Array, ReadableType.Map, ReadableType.Boolean});
+    BATCH_MAP_COMMANDS.put("setMapBoundaries",
+        new ReadableType[] {ReadableType.Map, ReadableType.Map});
+    BATCH_MAP_COMMANDS.put("setIndoorActiveLevelIndex", new ReadableType[] {ReadableType.Number});
+
+    BATCH_MARKER_COMMANDS.put("showCallout", new ReadableType[0]);
+    BATCH_MARKER_COMMANDS.put("hideCallout", new ReadableType[0]);
+    BATCH_MARKER_COMMANDS.put("animateMarkerToCoordinate",
+        new ReadableType[] {ReadableType.Map, ReadableType.Number});
+    BATCH_MARKER_COMMANDS.put("redraw", new ReadableType[0]);
+  }
+
   private final ReactApplicationContext appContext;
   private AirMapMarkerManager markerManager;
 
@@ -74,9 +115,43 @@ public class AirMapManager extends ViewGroupManager<AirMapView> {
 
   @Override
   protected AirMapView createViewInstance(ThemedReactContext context) {
+    AirMapViewPool viewPool = getViewPool();
+    AirMapView view = viewPool != null ? viewPool.acquire(context) : null;
+    if (view != null) {
+      return view;
+    }
     return new AirMapView(context, this.appContext, this, googleMapOptions);
   }
 
+  /**
+   * @return the pool views of this manager are taken from and dropped into, or null.
+   */
+  @Nullable
+  protected AirMapViewPool getViewPool() {
+    return AirMapViewPool.get(appContext);
+  }
+
+  /**
+   * Sets every prop back to its default, as if the view had just been created. The map settings
+   * are then restored to those of a new GoogleMap, which several prop defaults don't match.
+   *
+   * @return false when a prop couldn't be reset, the view must not be reused then.
+   */
+  boolean resetProps(AirMapView view) {
+    for (String name : getNativeProps().keySet()) {
+      JavaOnlyMap props = new JavaOnlyMap();
+      props.putNull(name);
+      try {
+        updateProperties(view, new ReactStylesDiffMap(props));
+      } catch (RuntimeException e) {
+        FLog.w(ReactConstants.TAG, "Could not reset " + name + ", not reusing the map", e);
+        return false;
+      }
+    }
+    view.restoreInitialSettings();
+    return true;
+  }
+
   private void emitMapError(ThemedReactContext context, String message, String type) {
     WritableMap error = Arguments.createMap();
     error.putString("message", message);
@@ -109,13 +184,13 @@ public class AirMapManager extends ViewGroupManager<AirMapView> {
 
   @ReactProp(name = "mapType")
   public void setMapType(AirMapView view, @Nullable String mapType) {
-    int typeId = MAP_TYPES.get(mapType);
-    view.map.setMapType(typeId);
+    Integer typeId = MAP_TYPES.get(mapType);
+    view.map.setMapType(typeId != null ? typeId : GoogleMap.MAP_TYPE_NORMAL);
   }
 
   @ReactProp(name = "customMapStyleString")
   public void setMapStyle(AirMapView view, @Nullable String customMapStyleString) {
-    view.map.setMapStyle(new MapStyleOptions(customMapStyleString));
+    view.setMapStyle(customMapStyleString);
   }
 
   @ReactProp(name = "mapPadding")
@@ -169,6 +244,74 @@ public class AirMapManager extends ViewGroupManager<AirMapView> {
     view.setHandlePanDrag(handlePanDrag);
   }
 
+  @ReactProp(name = "regionChangeThrottleMs", defaultInt = 0)
+  public void setRegionChangeThrottleMs(AirMapView view, int regionChangeThrottleMs) {
+    view.setRegionChangeThrottleMs(regionChangeThrottleMs);
+  }
+
+  @ReactProp(name = "regionChangeMinDelta", defaultDouble = 0)
+  public void setRegionChangeMinDelta(AirMapView view, double regionChangeMinDelta) {
+    view.setRegionChangeMinDelta(regionChangeMinDelta);
+  }
+
+  @ReactProp(name = "dragEventThrottleMs", defaultInt = 0)
+  public void setDragEventThrottleMs(AirMapView view, int dragEventThrottleMs) {
+    view.setDragEventThrottleMs(dragEventThrottleMs);
+  }
+
+  @ReactProp(name = "userLocationDistanceFilter", defaultFloat = 0f)
+  public void setUserLocationDistanceFilter(AirMapView view, float distanceFilter) {
+    view.setUserLocationDistanceFilter(distanceFilter);
+  }
+
+  @ReactProp(name = "userLocationMinIntervalMs", defaultInt = 0)
+  public void setUserLocationMinIntervalMs(AirMapView view, int minIntervalMs) {
+    view.setUserLocationMinIntervalMs(minIntervalMs);
+  }
+
+  @ReactProp(name = "userLocationMaxAccuracy", defaultFloat = 0f)
+  public void setUserLocationMaxAccuracy(AirMapView view, float maxAccuracy) {
+    view.setUserLocationMaxAccuracy(maxAccuracy);
+  }
+
+  @ReactProp(name = "geofences")
+  public void setGeofences(AirMapView view, @Nullable ReadableArray geofences) {
+    List<GeofenceSet.Fence> fences = new ArrayList<>();
+    if (geofences != null) {
+      for (int i = 0; i < geofences.size(); i++) {
+        ReadableMap fence = geofences.getMap(i);
+        String id = fence.getString("id");
+        if (fence.hasKey("coordinates")) {
+          ReadableArray coordinates = fence.getArray("coordinates");
+          List<LatLng> points = new ArrayList<>(coordinates.size());
+          for (int j = 0; j < coordinates.size(); j++) {
+            points.add(toLatLng(coordinates.getMap(j)));
+          }
+          fences.add(new GeofenceSet.PolygonFence(id, points));
+        } else if (fence.hasKey("center")) {
+          double radius = fence.hasKey("radius") && !fence.isNull("radius")
+              ? fence.getDouble("radius") : 0;
+          if (!(radius > 0)) {
+            FLog.w(ReactConstants.TAG, "Skipping geofence " + id + " without a positive radius");
+            continue;
+          }
+          fences.add(new GeofenceSet.CircleFence(id, toLatLng(fence.getMap("center")), radius));
+        }
+      }
+    }
+    view.setGeofences(fences);
+  }
+
+  static LatLng toLatLng(ReadableMap coordinate) {
+    return new LatLng(coordinate.getDouble("latitude"), coordinate.getDouble("longitude"));
+  }
+
+  // Interval in milliseconds at which onTileMetrics is emitted, 0 disables the event.
+  @ReactProp(name = "tileMetricsInterval", defaultInt = 0)
+  public void setTileMetricsInterval(AirMapView view, int tileMetricsInterval) {
+    view.setTileMetricsInterval(tileMetricsInterval);
+  }
+
   @ReactProp(name = "showsTraffic", defaultBoolean = false)
   public void setShowTraffic(AirMapView view, boolean showTraffic) {
     view.map.setTrafficEnabled(showTraffic);
@@ -349,7 +492,104 @@ public class AirMapManager extends ViewGroupManager<AirMapView> {
       case SET_INDOOR_ACTIVE_LEVEL_INDEX:
         view.setIndoorActiveLevelIndex(args.getInt(0));
         break;
+
+      case EXECUTE_BATCH:
+        executeBatch(view, args);
+        break;
+    }
+  }
+
+  /**
+   * Applies the operations in order while handling a single command, so they all take effect in
+   * the same frame. Operations with a marker identifier go to the markers with that identifier,
+   * the others to the map.
+   *
+   * The whole batch is checked first: when any operation is unknown or has arguments of the wrong
+   * type, or when the command has no array of operations, the batch is rejected and nothing is
+   * applied.
+   */
+  private void executeBatch(AirMapView view, @Nullable ReadableArray args) {
+    String error = args == null || args.size() < 1 || args.getType(0) != ReadableType.Array
+        ? "the operations are not an array"
+        : validateBatch(args.getArray(0));
+    if (error != null) {
+      FLog.e(ReactConstants.TAG, "Rejected executeBatch, nothing was applied: " + error);
+      return;
+    }
+    ReadableArray operations = args.getArray(0);
+
+    Map<String, Integer> mapCommands = getCommandsMap();
+    Map<String, Integer> markerCommands = markerManager.getCommandsMap();
+
+    for (int i = 0; i < operations.size(); i++) {
+      ReadableMap operation = operations.getMap(i);
+      String command = operation.getString("command");
+      ReadableArray commandArgs = hasBatchArgs(operation)
+          ? operation.getArray("args")
+          : Arguments.createArray();
+
+      if (operation.hasKey("marker")) {
+        int commandId = markerCommands.get(command);
+        for (AirMapFeature feature : view.features.getByIdentifier(operation.getString("marker"))) {
+          if (feature instanceof AirMapMarker) {
+            markerManager.receiveCommand((AirMapMarker) feature, commandId, commandArgs);
+          }
+        }
+      } else {
+        receiveCommand(view, mapCommands.get(command), commandArgs);
+      }
+    }
+  }
+
+  /**
+   * @return why the batch can't be applied, or null when every operation is valid.
+   */
+  @Nullable
+  private static String validateBatch(ReadableArray operations) {
+    for (int i = 0; i < operations.size(); i++) {
+      if (operations.getType(i) != ReadableType.Map) {
+        return "operation " + i + " is not an object";
+      }
+      ReadableMap operation = operations.getMap(i);
+      if (!operation.hasKey("command") || operation.getType("command") != ReadableType.String) {
+        return "operation " + i + " has no command";
+      }
+      String command = operation.getString("command");
+
+      boolean marker = operation.hasKey("marker");
+      if (marker && operation.getType("marker") != ReadableType.String) {
+        return "the marker of operation " + i + " is not an identifier";
+      }
+      ReadableType[] types = marker
+          ? BATCH_MARKER_COMMANDS.get(command)
+          : BATCH_MAP_COMMANDS.get(command);
+      if (types == null) {
+        return "unsupported " + (marker ? "marker" : "map") + " command " + command +
+            " in operation " + i;
+      }
+
+      if (operation.hasKey("args") && !operation.isNull("args") &&
+          operation.getType("args") != ReadableType.Array) {
+        return "the args of operation " + i + " are not an array";
+      }
+      ReadableArray args = hasBatchArgs(operation) ? operation.getArray("args") : null;
+      int count = args != null ? args.size() : 0;
+      if (count < types.length) {
+        return command + " in operation " + i + " needs " + types.length + " arguments, got " +
+            count;
+      }
+      for (int j = 0; j < types.length; j++) {
+        if (args.getType(j) != types[j]) {
+          return "argument " + j + " of " + command + " in operation " + i + " must be a " +
+              types[j] + ", got " + args.getType(j);
+        }
+      }
     }
+    return null;
+  }
+
+  private static boolean hasBatchArgs(ReadableMap operation) {
+    return operation.hasKey("args") && !operation.isNull("args");
   }
 
   @Override
@@ -379,7 +619,10 @@ public class AirMapManager extends ViewGroupManager<AirMapView> {
         "onIndoorLevelActivated", MapBuilder.of("registrationName", "onIndoorLevelActivated"),
         "onIndoorBuildingFocused", MapBuilder.of("registrationName", "onIndoorBuildingFocused"),
         "onDoublePress", MapBuilder.of("registrationName", "onDoublePress"),
-        "onMapLoaded", MapBuilder.of("registrationName", "onMapLoaded")
+        "onMapLoaded", MapBuilder.of("registrationName", "onMapLoaded"),
+        "onTileMetrics", MapBuilder.of("registrationName", "onTileMetrics"),
+        "onKmlProgress", MapBuilder.of("registrationName", "onKmlProgress"),
+        "onGeofenceTransition", MapBuilder.of("registrationName", "onGeofenceTransition")
     ));
 
     return map;
@@ -403,7 +646,8 @@ public class AirMapManager extends ViewGroupManager<AirMapView> {
 
     map.putAll(MapBuilder.of(
       "setMapBoundaries", SET_MAP_BOUNDARIES,
-      "setIndoorActiveLevelIndex", SET_INDOOR_ACTIVE_LEVEL_INDEX
+      "setIndoorActiveLevelIndex", SET_INDOOR_ACTIVE_LEVEL_INDEX,
+      "executeBatch", EXECUTE_BATCH
     ));
 
     return map;
@@ -458,13 +702,19 @@ public class AirMapManager extends ViewGroupManager<AirMapView> {
   }
 
   void pushEvent(ThemedReactContext context, View view, String name, WritableMap data) {
+    if (view instanceof AirMapView && ((AirMapView) view).isPooled()) {
+      return;
+    }
     context.getJSModule(RCTEventEmitter.class)
         .receiveEvent(view.getId(), name, data);
   }
 
   @Override
   public void onDropViewInstance(AirMapView view) {
-    view.doDestroy();
+    AirMapViewPool viewPool = getViewPool();
+    if (viewPool == null || !viewPool.recycle(view)) {
+      view.doDestroy();
+    }
     super.onDropViewInstance(view);
   }
 
@@ -7,9 +7,11 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.drawable.Animatable;
 import android.graphics.drawable.Drawable;
-import android.net.Uri;
+import android.view.Choreographer;
 import android.view.View;
 import android.widget.LinearLayout;
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
 import android.animation.ObjectAnimator;
 import android.util.Property;
 import android.animation.TypeEvaluator;
@@ -29,12 +31,12 @@ import com.facebook.imagepipeline.image.CloseableImage;
 import com.facebook.imagepipeline.image.CloseableStaticBitmap;
 import com.facebook.imagepipeline.image.ImageInfo;
 import com.facebook.imagepipeline.request.ImageRequest;
-import com.facebook.imagepipeline.request.ImageRequestBuilder;
 import com.facebook.react.bridge.ReadableMap;
 import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.model.BitmapDescriptor;
 import com.google.android.gms.maps.model.BitmapDescriptorFactory;
 import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
 import com.google.android.gms.maps.model.Marker;
 import com.google.android.gms.maps.model.MarkerOptions;
 
@@ -42,6 +44,19 @@ import javax.annotation.Nullable;
 
 public class AirMapMarker extends AirMapFeature {
 
+  // Marker fields changed since they were last applied to the Marker.
+  private static final int DIRTY_POSITION = 1;
+  private static final int DIRTY_TITLE = 1 << 1;
+  private static final int DIRTY_SNIPPET = 1 << 2;
+  private static final int DIRTY_ROTATION = 1 << 3;
+  private static final int DIRTY_FLAT = 1 << 4;
+  private static final int DIRTY_DRAGGABLE = 1 << 5;
+  private static final int DIRTY_Z_INDEX = 1 << 6;
+  private static final int DIRTY_OPACITY = 1 << 7;
+  private static final int DIRTY_ANCHOR = 1 << 8;
+  private static final int DIRTY_CALLOUT_ANCHOR = 1 << 9;
+  private static final int DIRTY_ICON = 1 << 10;
+
   private MarkerOptions markerOptions;
   private Marker marker;
   private int width;
@@ -77,12 +92,42 @@ public class AirMapMarker extends AirMapFeature {
   private boolean tracksViewChanges = true;
   private boolean tracksViewChangesActive = false;
   private boolean hasViewChanges = true;
+  private int dirtyFields = 0;
+  private boolean applyScheduled = false;
+  // identifies the latest icon update, composite icons of older updates are dropped
+  private int compositeGeneration = 0;
+  private Bitmap compositeBitmap;
+  private final Choreographer.FrameCallback applyCallback = new Choreographer.FrameCallback() {
+    @Override
+    public void doFrame(long frameTimeNanos) {
+      applyScheduled = false;
+      applyDirtyFields();
+    }
+  };
 
   private boolean hasCustomMarkerView = false;
   private final AirMapMarkerManager markerManager;
   private String imageUri;
+  private MarkerLabelRenderer.Label label;
+  // the shared icon of the image, per uri and decode options
+  private String imageKey;
+  // the shared icon this marker is loading the image for, others wait for the outcome
+  private String loadingImageKey;
+  private int imageWidth = 0;
+  private int imageHeight = 0;
+  private Bitmap.Config imageConfig = Bitmap.Config.ARGB_8888;
+  private boolean imageLoadScheduled = false;
+  private boolean imageLoadPending = false;
+  private final Choreographer.FrameCallback imageLoadCallback = new Choreographer.FrameCallback() {
+    @Override
+    public void doFrame(long frameTimeNanos) {
+      imageLoadScheduled = false;
+      loadImage();
+    }
+  };
 
-  private final DraweeHolder<?> logoHolder;
+  // only created for markers that load a remote image, most markers never need one
+  private DraweeHolder<?> logoHolder;
   private DataSource<CloseableReference<CloseableImage>> dataSource;
   private final ControllerListener<ImageInfo> mLogoControllerListener =
       new BaseControllerListener<ImageInfo>() {
@@ -100,7 +145,8 @@ public class AirMapMarker extends AirMapFeature {
                 CloseableStaticBitmap closeableStaticBitmap = (CloseableStaticBitmap) image;
                 Bitmap bitmap = closeableStaticBitmap.getUnderlyingBitmap();
                 if (bitmap != null) {
-                  bitmap = bitmap.copy(Bitmap.Config.ARGB_8888, true);
+                  bitmap = AirMapMarkerManager.copyIcon(
+                      bitmap, imageWidth, imageHeight, imageConfig);
                   iconBitmap = bitmap;
                   iconBitmapDescriptor = BitmapDescriptorFactory.fromBitmap(bitmap);
                 }
@@ -112,28 +158,38 @@ public class AirMapMarker extends AirMapFeature {
               CloseableReference.closeSafely(imageReference);
             }
           }
-          if (AirMapMarker.this.markerManager != null && AirMapMarker.this.imageUri != null) {
-            AirMapMarker.this.markerManager.getSharedIcon(AirMapMarker.this.imageUri)
+          loadingImageKey = null;
+          if (AirMapMarker.this.markerManager != null && AirMapMarker.this.imageKey != null) {
+            AirMapMarker.this.markerManager.getSharedIcon(AirMapMarker.this.imageKey)
                 .updateIcon(iconBitmapDescriptor, iconBitmap);
           }
           update(true);
         }
+
+        @Override
+        public void onFailure(String id, Throwable throwable) {
+          if (dataSource != null) {
+            dataSource.close();
+          }
+          loadingImageKey = null;
+          if (AirMapMarker.this.markerManager != null && AirMapMarker.this.imageKey != null) {
+            // the next marker showing the image tries again
+            AirMapMarker.this.markerManager.getSharedIcon(AirMapMarker.this.imageKey)
+                .loadFailed();
+          }
+        }
       };
 
   public AirMapMarker(Context context, AirMapMarkerManager markerManager) {
     super(context);
     this.context = context;
     this.markerManager = markerManager;
-    logoHolder = DraweeHolder.create(createDraweeHierarchy(), context);
-    logoHolder.onAttach();
   }
 
   public AirMapMarker(Context context, MarkerOptions options, AirMapMarkerManager markerManager) {
     super(context);
     this.context = context;
     this.markerManager = markerManager;
-    logoHolder = DraweeHolder.create(createDraweeHierarchy(), context);
-    logoHolder.onAttach();
 
     position = options.getPosition();
     setAnchor(options.getAnchorU(), options.getAnchorV());
@@ -148,6 +204,14 @@ public class AirMapMarker extends AirMapFeature {
     iconBitmapDescriptor = options.getIcon();
   }
 
+  private DraweeHolder<?> getLogoHolder() {
+    if (logoHolder == null) {
+      logoHolder = DraweeHolder.create(createDraweeHierarchy(), context);
+      logoHolder.onAttach();
+    }
+    return logoHolder;
+  }
+
   private GenericDraweeHierarchy createDraweeHierarchy() {
     return new GenericDraweeHierarchyBuilder(getResources())
         .setActualImageScaleType(ScalingUtils.ScaleType.FIT_CENTER)
@@ -157,100 +221,72 @@ public class AirMapMarker extends AirMapFeature {
 
   public void setCoordinate(ReadableMap coordinate) {
     position = new LatLng(coordinate.getDouble("latitude"), coordinate.getDouble("longitude"));
-    if (marker != null) {
-      marker.setPosition(position);
-    }
-    update(false);
+    markDirty(DIRTY_POSITION);
+    notifyGeometryChange();
   }
 
   public void setIdentifier(String identifier) {
     this.identifier = identifier;
-    update(false);
+    notifyIdentifierChange();
   }
 
+  @Override
   public String getIdentifier() {
     return this.identifier;
   }
 
   public void setTitle(String title) {
     this.title = title;
-    if (marker != null) {
-      marker.setTitle(title);
-    }
-    update(false);
+    markDirty(DIRTY_TITLE);
   }
 
   public void setSnippet(String snippet) {
     this.snippet = snippet;
-    if (marker != null) {
-      marker.setSnippet(snippet);
-    }
-    update(false);
+    markDirty(DIRTY_SNIPPET);
   }
 
   public void setRotation(float rotation) {
     this.rotation = rotation;
-    if (marker != null) {
-      marker.setRotation(rotation);
-    }
-    update(false);
+    markDirty(DIRTY_ROTATION);
   }
 
   public void setFlat(boolean flat) {
     this.flat = flat;
-    if (marker != null) {
-      marker.setFlat(flat);
-    }
-    update(false);
+    markDirty(DIRTY_FLAT);
   }
 
   public void setDraggable(boolean draggable) {
     this.draggable = draggable;
-    if (marker != null) {
-      marker.setDraggable(draggable);
-    }
-    update(false);
+    markDirty(DIRTY_DRAGGABLE);
   }
 
   public void setZIndex(int zIndex) {
     this.zIndex = zIndex;
-    if (marker != null) {
-      marker.setZIndex(zIndex);
-    }
-    update(false);
+    markDirty(DIRTY_Z_INDEX);
   }
 
   public void setOpacity(float opacity) {
     this.opacity = opacity;
-    if (marker != null) {
-      marker.setAlpha(opacity);
-    }
-    update(false);
+    markDirty(DIRTY_OPACITY);
   }
 
   public void setMarkerHue(float markerHue) {
     this.markerHue = markerHue;
-    update(false);
+    markDirty(DIRTY_ICON);
   }
 
   public void setAnchor(double x, double y) {
     anchorIsSet = true;
     anchorX = (float) x;
     anchorY = (float) y;
-    if (marker != null) {
-      marker.setAnchor(anchorX, anchorY);
-    }
-    update(false);
+    markDirty(DIRTY_ANCHOR);
   }
 
   public void setCalloutAnchor(double x, double y) {
     calloutAnchorIsSet = true;
     calloutAnchorX = (float) x;
     calloutAnchorY = (float) y;
-    if (marker != null) {
-      marker.setInfoWindowAnchor(calloutAnchorX, calloutAnchorY);
-    }
-    update(false);
+    markDirty(DIRTY_CALLOUT_ANCHOR);
   }
 
   public void setTracksViewChanges(boolean tracksViewChanges) {
@@ -287,14 +323,55 @@ public class AirMapMarker extends AirMapFeature {
   }
 
   public void updateMarkerIcon() {
-    if (marker == null) return;
+    if (marker == null || areUpdatesDeferred()) {
+      dirtyFields |= DIRTY_ICON;
+      return;
+    }
+    dirtyFields &= ~DIRTY_ICON;
 
     if (!hasCustomMarkerView) {
       // No more updates for this, as it's a simple icon
       hasViewChanges = false;
     }
-    if (marker != null) {
-      marker.setIcon(getIcon());
+    if (hasCustomMarkerView && iconBitmapDescriptor != null) {
+      compositeIcon();
+      return;
+    }
+    // a pending composite icon must not replace this one
+    compositeGeneration++;
+    marker.setIcon(getIcon());
+    releaseCompositeBitmap();
+  }
+
+  /**
+   * Only draws the view on the main thread, the image is drawn under it in the background and the
+   * icon swapped in once it is ready.
+   */
+  private void compositeIcon() {
+    final int generation = ++compositeGeneration;
+    final MarkerIconCompositor compositor = MarkerIconCompositor.getInstance(getContext());
+    Bitmap viewBitmap = compositor.obtain(this.width <= 0 ? 100 : this.width,
+        this.height <= 0 ? 100 : this.height, Bitmap.Config.ARGB_8888);
+    drawView(viewBitmap);
+
+    compositor.composite(iconBitmap, viewBitmap, new MarkerIconCompositor.Callback() {
+      @Override
+      public void onComposited(BitmapDescriptor descriptor, Bitmap bitmap) {
+        if (generation != compositeGeneration || marker == null) {
+          compositor.release(bitmap);
+          return;
+        }
+        marker.setIcon(descriptor);
+        releaseCompositeBitmap();
+        compositeBitmap = bitmap;
+      }
+    });
+  }
+
+  private void releaseCompositeBitmap() {
+    if (compositeBitmap != null) {
+      MarkerIconCompositor.getInstance(getContext()).release(compositeBitmap);
+      compositeBitmap = null;
     }
   }
 
@@ -318,13 +395,29 @@ public class AirMapMarker extends AirMapFeature {
       typeEvaluator,
       finalPosition);
     animator.setDuration(duration);
+    animator.addListener(new AnimatorListenerAdapter() {
+      @Override
+      public void onAnimationEnd(Animator animation) {
+        notifyGeometryChange();
+      }
+    });
     animator.start();
   }
 
+  /**
+   * Shows the label as the icon, drawn without a view. Custom marker views still take precedence.
+   */
+  public void setLabel(@Nullable MarkerLabelRenderer.Label label) {
+    this.label = label;
+    update(true);
+  }
+
   public void setImage(String uri) {
     hasViewChanges = true;
 
     boolean shouldLoadImage = true;
+    String key = uri == null ? null : isRemoteImage(uri)
+        ? AirMapMarkerManager.getSharedIconKey(uri, imageWidth, imageHeight, imageConfig) : uri;
 
     if (this.markerManager != null) {
       // remove marker from previous shared icon if needed, to avoid future updates from it.
@@ -334,38 +427,37 @@ public class AirMapMarker extends AirMapFeature {
       // However in case where client want to update all markers from icon A to icon B
       // and after some time to update back from icon B to icon A
       // it may be better to keep it though. We assume that is rare.
-      if (this.imageUri != null) {
-        this.markerManager.getSharedIcon(this.imageUri).removeMarker(this);
-        this.markerManager.removeSharedIconIfEmpty(this.imageUri);
+      if (this.imageKey != null) {
+        this.markerManager.getSharedIcon(this.imageKey).removeMarker(this);
+        if (this.loadingImageKey != null && !this.loadingImageKey.equals(key)) {
+          abandonImageLoad();
+        }
+        this.markerManager.removeSharedIconIfEmpty(this.imageKey);
       }
-      if (uri != null) {
+      if (key != null) {
         // listening for marker bitmap descriptor update, as well as check whether to load the image.
-        AirMapMarkerManager.AirMapMarkerSharedIcon sharedIcon = this.markerManager.getSharedIcon(uri);
+        AirMapMarkerManager.AirMapMarkerSharedIcon sharedIcon = this.markerManager.getSharedIcon(key);
         sharedIcon.addMarker(this);
         shouldLoadImage = sharedIcon.shouldLoadImage();
       }
     }
 
     this.imageUri = uri;
+    this.imageKey = key;
+    imageLoadPending = false;
     if (!shouldLoadImage) {return;}
 
     if (uri == null) {
       iconBitmapDescriptor = null;
       update(true);
-    } else if (uri.startsWith("http://") || uri.startsWith("https://") ||
-        uri.startsWith("file://") || uri.startsWith("asset://") || uri.startsWith("data:")) {
-      ImageRequest imageRequest = ImageRequestBuilder
-          .newBuilderWithSource(Uri.parse(uri))
-          .build();
-
-      ImagePipeline imagePipeline = Fresco.getImagePipeline();
-      dataSource = imagePipeline.fetchDecodedImage(imageRequest, this);
-      DraweeController controller = Fresco.newDraweeControllerBuilder()
-          .setImageRequest(imageRequest)
-          .setControllerListener(mLogoControllerListener)
-          .setOldController(logoHolder.getController())
-          .build();
-      logoHolder.setController(controller);
+    } else if (isRemoteImage(uri)) {
+      loadingImageKey = key;
+      // imageSize and imageConfig may still follow in the same commit
+      imageLoadPending = true;
+      if (!imageLoadScheduled) {
+        imageLoadScheduled = true;
+        Choreographer.getInstance().postFrameCallback(imageLoadCallback);
+      }
     } else {
       iconBitmapDescriptor = getBitmapDescriptorByName(uri);
       if (iconBitmapDescriptor != null) {
@@ -379,13 +471,77 @@ public class AirMapMarker extends AirMapFeature {
               drawable.draw(canvas);
           }
       }
-      if (this.markerManager != null && uri != null) {
-        this.markerManager.getSharedIcon(uri).updateIcon(iconBitmapDescriptor, iconBitmap);
+      if (this.markerManager != null && key != null) {
+        this.markerManager.getSharedIcon(key).updateIcon(iconBitmapDescriptor, iconBitmap);
       }
       update(true);
     }
   }
 
+  /**
+   * Hands the image load this marker started over to another marker showing the same image, and
+   * fails the prefetches waiting for it.
+   */
+  private void abandonImageLoad() {
+    AirMapMarker waiting =
+        this.markerManager.getSharedIcon(this.loadingImageKey).loadFailed();
+    this.loadingImageKey = null;
+    if (waiting != null) {
+      waiting.setImage(waiting.getImageUri());
+    }
+  }
+
+  /**
+   * Size in pixels remote images are decoded at, 0 keeps their own size.
+   */
+  public void setImageSize(int width, int height) {
+    if (width == imageWidth && height == imageHeight) {
+      return;
+    }
+    imageWidth = width;
+    imageHeight = height;
+    if (imageUri != null && isRemoteImage(imageUri)) {
+      setImage(imageUri);
+    }
+  }
+
+  public void setImageConfig(Bitmap.Config config) {
+    if (config == imageConfig) {
+      return;
+    }
+    imageConfig = config;
+    if (imageUri != null && isRemoteImage(imageUri)) {
+      setImage(imageUri);
+    }
+  }
+
+  String getImageUri() {
+    return imageUri;
+  }
+
+  static boolean isRemoteImage(String uri) {
+    return uri.startsWith("http://") || uri.startsWith("https://") ||
+        uri.startsWith("file://") || uri.startsWith("asset://") || uri.startsWith("data:");
+  }
+
+  private void loadImage() {
+    if (!imageLoadPending || imageUri == null) {
+      return;
+    }
+    imageLoadPending = false;
+
+    ImageRequest imageRequest = AirMapMarkerManager
+        .buildImageRequest(imageUri, imageWidth, imageHeight, imageConfig);
+    ImagePipeline imagePipeline = Fresco.getImagePipeline();
+    dataSource = imagePipeline.fetchDecodedImage(imageRequest, this);
+    DraweeController controller = Fresco.newDraweeControllerBuilder()
+        .setImageRequest(imageRequest)
+        .setControllerListener(mLogoControllerListener)
+        .setOldController(getLogoHolder().getController())
+        .build();
+    getLogoHolder().setController(controller);
+  }
+
   public void setIconBitmapDescriptor(BitmapDescriptor bitmapDescriptor, Bitmap bitmap) {
     this.iconBitmapDescriptor = bitmapDescriptor;
     this.iconBitmap = bitmap;
@@ -437,9 +593,72 @@ public class AirMapMarker extends AirMapFeature {
     return marker;
   }
 
+  @Override
+  public LatLngBounds getGeometryBounds() {
+    // the marker itself moves when dragged or animated
+    LatLng current = marker != null && (dirtyFields & DIRTY_POSITION) == 0
+        ? marker.getPosition() : position;
+    return current == null ? null : new LatLngBounds(current, current);
+  }
+
+  /**
+   * Records a changed field. The props of one React commit all arrive before the next frame, so
+   * they are applied to the Marker together then, each field once.
+   */
+  private void markDirty(int fields) {
+    dirtyFields |= fields;
+    if (marker == null || areUpdatesDeferred() || applyScheduled) {
+      // a new marker takes every field from its options, a deferred one when updates resume
+      return;
+    }
+    applyScheduled = true;
+    Choreographer.getInstance().postFrameCallback(applyCallback);
+  }
+
+  /**
+   * Applies the changed fields right away, for commands that depend on them.
+   */
+  void applyDirtyFields() {
+    if (marker == null || areUpdatesDeferred() || dirtyFields == 0) {
+      return;
+    }
+    int dirty = dirtyFields;
+    dirtyFields = 0;
+
+    if ((dirty & DIRTY_POSITION) != 0) marker.setPosition(position);
+    if ((dirty & DIRTY_TITLE) != 0) marker.setTitle(title);
+    if ((dirty & DIRTY_SNIPPET) != 0) marker.setSnippet(snippet);
+    if ((dirty & DIRTY_ROTATION) != 0) marker.setRotation(rotation);
+    if ((dirty & DIRTY_FLAT) != 0) marker.setFlat(flat);
+    if ((dirty & DIRTY_DRAGGABLE) != 0) marker.setDraggable(draggable);
+    if ((dirty & DIRTY_Z_INDEX) != 0) marker.setZIndex(zIndex);
+    if ((dirty & DIRTY_OPACITY) != 0) marker.setAlpha(opacity);
+    if ((dirty & DIRTY_ANCHOR) != 0) {
+      if (anchorIsSet) {
+        marker.setAnchor(anchorX, anchorY);
+      } else {
+        marker.setAnchor(0.5f, 1.0f);
+      }
+    }
+    if ((dirty & DIRTY_CALLOUT_ANCHOR) != 0) {
+      if (calloutAnchorIsSet) {
+        marker.setInfoWindowAnchor(calloutAnchorX, calloutAnchorY);
+      } else {
+        marker.setInfoWindowAnchor(0.5f, 0);
+      }
+    }
+    if ((dirty & DIRTY_ICON) != 0) updateMarkerIcon();
+  }
+
+  @Override
+  protected void applyDeferredUpdates() {
+    applyDirtyFields();
+  }
+
   @Override
   public void addToMap(GoogleMap map) {
     marker = map.addMarker(getMarkerOptions());
+    dirtyFields = 0;
     updateTracksViewChanges();
   }
 
@@ -450,6 +669,8 @@ public class AirMapMarker extends AirMapFeature {
     }
     marker.remove();
     marker = null;
+    compositeGeneration++;
+    releaseCompositeBitmap();
     updateTracksViewChanges();
   }
 
@@ -460,7 +681,7 @@ public class AirMapMarker extends AirMapFeature {
         Bitmap viewBitmap = createDrawable();
         int width = Math.max(iconBitmap.getWidth(), viewBitmap.getWidth());
         int height = Math.max(iconBitmap.getHeight(), viewBitmap.getHeight());
-        Bitmap combinedBitmap = Bitmap.createBitmap(width, height, iconBitmap.getConfig());
+        Bitmap combinedBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
         Canvas canvas = new Canvas(combinedBitmap);
         canvas.drawBitmap(iconBitmap, 0, 0, null);
         canvas.drawBitmap(viewBitmap, 0, 0, null);
@@ -468,6 +689,8 @@ public class AirMapMarker extends AirMapFeature {
       } else {
         return BitmapDescriptorFactory.fromBitmap(createDrawable());
       }
+    } else if (label != null) {
+      return MarkerLabelRenderer.getInstance().getIcon(label, context.getAssets());
     } else if (iconBitmapDescriptor != null) {
       // use local image as a marker
       return iconBitmapDescriptor;
@@ -492,24 +715,12 @@ public class AirMapMarker extends AirMapFeature {
     return options;
   }
 
+  /**
+   * Schedules the icon to be recomputed with the other changed fields, at most once per frame.
+   */
   public void update(boolean updateIcon) {
-    if (marker == null) {
-      return;
-    }
-
-    if (updateIcon)
-      updateMarkerIcon();
-
-    if (anchorIsSet) {
-      marker.setAnchor(anchorX, anchorY);
-    } else {
-      marker.setAnchor(0.5f, 1.0f);
-    }
-
-    if (calloutAnchorIsSet) {
-      marker.setInfoWindowAnchor(calloutAnchorX, calloutAnchorY);
-    } else {
-      marker.setInfoWindowAnchor(0.5f, 0);
+    if (updateIcon) {
+      markDirty(DIRTY_ICON);
     }
   }
 
@@ -529,7 +740,6 @@ public class AirMapMarker extends AirMapFeature {
   private Bitmap createDrawable() {
     int width = this.width <= 0 ? 100 : this.width;
     int height = this.height <= 0 ? 100 : this.height;
-    this.buildDrawingCache();
 
     // Do not create the doublebuffer-bitmap each time. reuse it to save memory.
     Bitmap bitmap = mLastBitmapCreated;
@@ -544,10 +754,14 @@ public class AirMapMarker extends AirMapFeature {
       bitmap.eraseColor(Color.TRANSPARENT);
     }
 
+    drawView(bitmap);
+    return bitmap;
+  }
+
+  private void drawView(Bitmap bitmap) {
+    this.buildDrawingCache();
     Canvas canvas = new Canvas(bitmap);
     this.draw(canvas);
-
-    return bitmap;
   }
 
   public void setCalloutView(AirMapCallout view) {
@@ -1,9 +1,25 @@
 package com.airbnb.android.react.maps;
 
+import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.Color;
+import android.net.Uri;
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.View;
 
+import com.facebook.common.references.CloseableReference;
+import com.facebook.datasource.BaseDataSubscriber;
+import com.facebook.datasource.DataSource;
+import com.facebook.drawee.backends.pipeline.Fresco;
+import com.facebook.imagepipeline.common.ImageDecodeOptions;
+import com.facebook.imagepipeline.common.ResizeOptions;
+import com.facebook.imagepipeline.image.CloseableImage;
+import com.facebook.imagepipeline.image.CloseableStaticBitmap;
+import com.facebook.imagepipeline.request.ImageRequest;
+import com.facebook.imagepipeline.request.ImageRequestBuilder;
+import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.common.MapBuilder;
@@ -11,12 +27,19 @@ import com.facebook.react.uimanager.LayoutShadowNode;
 import com.facebook.react.uimanager.ThemedReactContext;
 import com.facebook.react.uimanager.ViewGroupManager;
 import com.facebook.react.uimanager.annotations.ReactProp;
+import com.google.android.gms.maps.MapsInitializer;
 import com.google.android.gms.maps.model.Marker;
 import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
 import com.google.android.gms.maps.model.LatLng;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -29,11 +52,26 @@ public class AirMapMarkerManager extends ViewGroupManager<AirMapMarker> {
   private static final int ANIMATE_MARKER_TO_COORDINATE = 3;
   private static final int REDRAW = 4;
 
+  // prefetched icons no marker uses yet, beyond this the oldest ones are dropped
+  private static final int MAX_PREFETCHED_ICONS = 200;
+
+  private static final Map<ReactApplicationContext, AirMapMarkerManager> managers =
+      new WeakHashMap<>();
+
+  public interface PrefetchCallback {
+    /**
+     * Called on the main thread once the image is in the shared icon store, or failed to load.
+     */
+    void onPrefetched(boolean success);
+  }
+
   public static class AirMapMarkerSharedIcon {
     private BitmapDescriptor iconBitmapDescriptor;
     private Bitmap bitmap;
     private Map<AirMapMarker, Boolean> markers;
     private boolean loadImageStarted;
+    // prefetches of the image that found its load already in progress
+    private final List<PrefetchCallback> pendingPrefetches = new ArrayList<>();
 
     public AirMapMarkerSharedIcon(){
       this.markers = new WeakHashMap<>();
@@ -86,7 +124,56 @@ public class AirMapMarkerManager extends ViewGroupManager<AirMapMarker> {
      * @return true if there is, false otherwise
      */
     public synchronized boolean hasMarker(){
-      return this.markers.isEmpty();
+      return !this.markers.isEmpty();
+    }
+
+    public synchronized boolean hasIcon() {
+      return this.iconBitmapDescriptor != null;
+    }
+
+    /**
+     * Lets a prefetch wait for the load in progress, the callback is called with its outcome.
+     *
+     * @return false when the icon is already loaded, the callback isn't kept then.
+     */
+    synchronized boolean addPendingPrefetch(PrefetchCallback callback) {
+      if (this.iconBitmapDescriptor != null) {
+        return false;
+      }
+      this.pendingPrefetches.add(callback);
+      return true;
+    }
+
+    synchronized boolean hasPendingPrefetches() {
+      return !this.pendingPrefetches.isEmpty();
+    }
+
+    private void notifyPendingPrefetches(boolean success) {
+      if (this.pendingPrefetches.isEmpty()) {
+        return;
+      }
+      List<PrefetchCallback> callbacks = new ArrayList<>(this.pendingPrefetches);
+      this.pendingPrefetches.clear();
+      for (PrefetchCallback callback : callbacks) {
+        callback.onPrefetched(success);
+      }
+    }
+
+    /**
+     * Lets the next marker load the image again after a failed or abandoned load, the prefetches
+     * waiting for it fail.
+     *
+     * @return one of the markers waiting for the image, or null.
+     */
+    synchronized AirMapMarker loadFailed() {
+      this.loadImageStarted = false;
+      notifyPendingPrefetches(false);
+      for (AirMapMarker marker : markers.keySet()) {
+        if (marker != null) {
+          return marker;
+        }
+      }
+      return null;
     }
 
     /**
@@ -98,8 +185,10 @@ public class AirMapMarkerManager extends ViewGroupManager<AirMapMarker> {
      */
     public synchronized void updateIcon(BitmapDescriptor bitmapDescriptor, Bitmap bitmap) {
 
+      // the markers own copy is never drawn into, so it can be shared as is
       this.iconBitmapDescriptor = bitmapDescriptor;
-      this.bitmap = bitmap.copy(Bitmap.Config.ARGB_8888, true);
+      this.bitmap = bitmap;
+      notifyPendingPrefetches(bitmapDescriptor != null);
 
       if (this.markers.isEmpty()) {
         return;
@@ -114,6 +203,65 @@ public class AirMapMarkerManager extends ViewGroupManager<AirMapMarker> {
   }
 
   private Map<String, AirMapMarkerSharedIcon> sharedIcons = new ConcurrentHashMap<>();
+  private final Set<String> prefetchedKeys = new LinkedHashSet<>();
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+  static synchronized void register(ReactApplicationContext context,
+      AirMapMarkerManager manager) {
+    managers.put(context, manager);
+  }
+
+  /**
+   * @return the marker manager created for the context, or null before the view managers are.
+   */
+  static synchronized AirMapMarkerManager get(ReactApplicationContext context) {
+    return managers.get(context);
+  }
+
+  /**
+   * @return the shared icon key of a remote image, the same image decoded at another size or in
+   * another format is a different icon.
+   */
+  static String getSharedIconKey(String uri, int width, int height, Bitmap.Config config) {
+    if (width <= 0 && height <= 0 && config == Bitmap.Config.ARGB_8888) {
+      return uri;
+    }
+    return uri + "#" + width + "x" + height + ":" + config;
+  }
+
+  static ImageRequest buildImageRequest(String uri, int width, int height,
+      Bitmap.Config config) {
+    ImageRequestBuilder builder = ImageRequestBuilder
+        .newBuilderWithSource(Uri.parse(uri))
+        .setImageDecodeOptions(ImageDecodeOptions.newBuilder().setBitmapConfig(config).build());
+    if (width > 0 && height > 0) {
+      builder.setResizeOptions(new ResizeOptions(width, height));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Copies a decoded image out of Fresco's pool in the given format. ResizeOptions are only
+   * honoured by decoders with downsampling enabled, so images larger than the size are scaled
+   * down here, keeping their aspect ratio.
+   */
+  static Bitmap copyIcon(Bitmap bitmap, int width, int height, Bitmap.Config config) {
+    if (width > 0 && height > 0 &&
+        (bitmap.getWidth() > width || bitmap.getHeight() > height)) {
+      float scale = Math.min(
+          (float) width / bitmap.getWidth(), (float) height / bitmap.getHeight());
+      Bitmap scaled = Bitmap.createScaledBitmap(bitmap,
+          Math.max(1, Math.round(bitmap.getWidth() * scale)),
+          Math.max(1, Math.round(bitmap.getHeight() * scale)), true);
+      if (scaled.getConfig() == config) {
+        return scaled;
+      }
+      Bitmap copy = scaled.copy(config, false);
+      scaled.recycle();
+      return copy;
+    }
+    return bitmap.copy(config, false);
+  }
 
   /**
    * get the shared icon object, if not existed, create a new one and store it.
@@ -142,15 +290,119 @@ public class AirMapMarkerManager extends ViewGroupManager<AirMapMarker> {
   public void removeSharedIconIfEmpty(String uri) {
     AirMapMarkerSharedIcon icon = this.sharedIcons.get(uri);
     if (icon == null) {return;}
-    if (!icon.hasMarker()) {
+    if (!icon.hasMarker() && !icon.hasPendingPrefetches()) {
       synchronized (this) {
-        if((icon = this.sharedIcons.get(uri)) != null && !icon.hasMarker()) {
+        if((icon = this.sharedIcons.get(uri)) != null && !icon.hasMarker() &&
+            !icon.hasPendingPrefetches()) {
           this.sharedIcons.remove(uri);
         }
       }
     }
   }
 
+  /**
+   * Decodes a remote image into the shared icon store off the main thread, so that markers
+   * mounted later with the same image, size and config get their icon without loading it.
+   * Images that are already in the store or being loaded are not loaded again, the callback
+   * gets the outcome of the load in progress then.
+   */
+  public void prefetchIcon(Context context, String uri, final int width, final int height,
+      final Bitmap.Config config, final PrefetchCallback callback) {
+    final String key = getSharedIconKey(uri, width, height, config);
+    final AirMapMarkerSharedIcon icon = getSharedIcon(key);
+    if (!icon.shouldLoadImage()) {
+      if (!icon.addPendingPrefetch(callback)) {
+        mainHandler.post(new Runnable() {
+          @Override
+          public void run() {
+            callback.onPrefetched(true);
+          }
+        });
+      }
+      return;
+    }
+    synchronized (prefetchedKeys) {
+      prefetchedKeys.add(key);
+    }
+    // BitmapDescriptorFactory needs this when no map was created yet
+    MapsInitializer.initialize(context.getApplicationContext());
+
+    final DataSource<CloseableReference<CloseableImage>> dataSource = Fresco.getImagePipeline()
+        .fetchDecodedImage(buildImageRequest(uri, width, height, config), null);
+    dataSource.subscribe(new BaseDataSubscriber<CloseableReference<CloseableImage>>() {
+      @Override
+      protected void onNewResultImpl(
+          DataSource<CloseableReference<CloseableImage>> dataSource) {
+        if (!dataSource.isFinished()) {
+          return;
+        }
+        Bitmap bitmap = null;
+        CloseableReference<CloseableImage> reference = dataSource.getResult();
+        try {
+          if (reference != null && reference.get() instanceof CloseableStaticBitmap) {
+            Bitmap decoded = ((CloseableStaticBitmap) reference.get()).getUnderlyingBitmap();
+            if (decoded != null) {
+              bitmap = copyIcon(decoded, width, height, config);
+            }
+          }
+        } finally {
+          CloseableReference.closeSafely(reference);
+        }
+        onPrefetchResult(key, icon, bitmap, callback);
+      }
+
+      @Override
+      protected void onFailureImpl(DataSource<CloseableReference<CloseableImage>> dataSource) {
+        onPrefetchResult(key, icon, null, callback);
+      }
+    }, AsyncTask.THREAD_POOL_EXECUTOR);
+  }
+
+  private void onPrefetchResult(final String key, final AirMapMarkerSharedIcon icon,
+      @Nullable final Bitmap bitmap, final PrefetchCallback callback) {
+    final BitmapDescriptor descriptor =
+        bitmap != null ? BitmapDescriptorFactory.fromBitmap(bitmap) : null;
+    mainHandler.post(new Runnable() {
+      @Override
+      public void run() {
+        if (descriptor != null) {
+          icon.updateIcon(descriptor, bitmap);
+          trimPrefetchedIcons();
+        } else {
+          AirMapMarker marker = icon.loadFailed();
+          if (marker != null) {
+            // the markers waiting for the prefetch load the image themselves
+            marker.setImage(marker.getImageUri());
+          } else {
+            synchronized (prefetchedKeys) {
+              prefetchedKeys.remove(key);
+            }
+            removeSharedIconIfEmpty(key);
+          }
+        }
+        callback.onPrefetched(descriptor != null);
+      }
+    });
+  }
+
+  private void trimPrefetchedIcons() {
+    List<String> evicted = new ArrayList<>();
+    synchronized (prefetchedKeys) {
+      Iterator<String> keys = prefetchedKeys.iterator();
+      while (prefetchedKeys.size() > MAX_PREFETCHED_ICONS && keys.hasNext()) {
+        evicted.add(keys.next());
+        keys.remove();
+      }
+    }
+    for (String key : evicted) {
+      AirMapMarkerSharedIcon icon = sharedIcons.get(key);
+      // icons still being loaded are left to the markers waiting for them
+      if (icon != null && icon.hasIcon()) {
+        removeSharedIconIfEmpty(key);
+      }
+    }
+  }
+
   public AirMapMarkerManager() {
   }
 
@@ -227,6 +479,56 @@ public class AirMapMarkerManager extends ViewGroupManager<AirMapMarker> {
     view.setImage(source);
   }
 
+  @ReactProp(name = "imageSize")
+  public void setImageSize(AirMapMarker view, @Nullable ReadableMap size) {
+    if (size == null) {
+      view.setImageSize(0, 0);
+      return;
+    }
+    float density = view.getResources().getDisplayMetrics().density;
+    view.setImageSize(Math.round(density * (float) size.getDouble("width")),
+        Math.round(density * (float) size.getDouble("height")));
+  }
+
+  @ReactProp(name = "imageConfig")
+  public void setImageConfig(AirMapMarker view, @Nullable String config) {
+    view.setImageConfig(
+        "RGB_565".equals(config) ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888);
+  }
+
+  @ReactProp(name = "label")
+  public void setLabel(AirMapMarker view, @Nullable ReadableMap label) {
+    if (label == null || !label.hasKey("text") || label.isNull("text")) {
+      view.setLabel(null);
+      return;
+    }
+    float density = view.getResources().getDisplayMetrics().density;
+    float fontScale = view.getResources().getConfiguration().fontScale;
+    String fontWeight = label.hasKey("fontWeight") ? label.getString("fontWeight") : null;
+    boolean bold = "bold".equals(fontWeight) ||
+        (fontWeight != null && fontWeight.length() == 3 && fontWeight.compareTo("600") >= 0);
+    view.setLabel(new MarkerLabelRenderer.Label(
+        label.getString("text"),
+        density * fontScale * getFloat(label, "fontSize", 14),
+        label.hasKey("fontFamily") ? label.getString("fontFamily") : null,
+        bold,
+        getColor(label, "color", Color.BLACK),
+        getColor(label, "backgroundColor", Color.WHITE),
+        getColor(label, "borderColor", Color.TRANSPARENT),
+        density * getFloat(label, "borderWidth", 0),
+        density * getFloat(label, "paddingHorizontal", 8),
+        density * getFloat(label, "paddingVertical", 4),
+        density * getFloat(label, "cornerRadius", 12)));
+  }
+
+  private static float getFloat(ReadableMap map, String key, float defaultValue) {
+    return map.hasKey(key) && !map.isNull(key) ? (float) map.getDouble(key) : defaultValue;
+  }
+
+  private static int getColor(ReadableMap map, String key, int defaultColor) {
+    return map.hasKey(key) && !map.isNull(key) ? map.getInt(key) : defaultColor;
+  }
+
   @ReactProp(name = "pinColor", defaultInt = Color.RED, customType = "Color")
   public void setPinColor(AirMapMarker view, int pinColor) {
     float[] hsv = new float[3];
@@ -306,6 +608,9 @@ public class AirMapMarkerManager extends ViewGroupManager<AirMapMarker> {
     Double lng;
     ReadableMap region;
 
+    // props sent before the command are applied on the next frame otherwise
+    view.applyDirtyFields();
+
     switch (commandId) {
       case SHOW_INFO_WINDOW:
         ((Marker) view.getFeature()).showInfoWindow();
@@ -4,32 +4,46 @@ import android.app.Activity;
 import android.graphics.Bitmap;
 import android.graphics.Point;
 import android.net.Uri;
+import android.os.AsyncTask;
+import android.os.Build;
+import android.os.SystemClock;
 import android.util.Base64;
+import android.util.Base64OutputStream;
 import android.util.DisplayMetrics;
 
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeArray;
 import com.facebook.react.bridge.WritableNativeMap;
 import com.facebook.react.module.annotations.ReactModule;
 import com.facebook.react.uimanager.NativeViewHierarchyManager;
 import com.facebook.react.uimanager.UIBlock;
 import com.facebook.react.uimanager.UIManagerModule;
 import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.Projection;
 import com.google.android.gms.maps.model.CameraPosition;
 import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
 import java.util.Map;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Nullable;
 
@@ -41,6 +55,9 @@ public class AirMapModule extends ReactContextBaseJavaModule {
   private static final String SNAPSHOT_RESULT_BASE64 = "base64";
   private static final String SNAPSHOT_FORMAT_PNG = "png";
   private static final String SNAPSHOT_FORMAT_JPG = "jpg";
+  private static final String SNAPSHOT_FORMAT_WEBP = "webp";
+
+  private StaticMapRenderer staticMapRenderer;
 
   public AirMapModule(ReactApplicationContext reactContext) {
     super(reactContext);
@@ -76,16 +93,20 @@ public class AirMapModule extends ReactContextBaseJavaModule {
     // Parse and verity options
     final ReactApplicationContext context = getReactApplicationContext();
     final String format = options.hasKey("format") ? options.getString("format") : "png";
-    final Bitmap.CompressFormat compressFormat =
-        format.equals(SNAPSHOT_FORMAT_PNG) ? Bitmap.CompressFormat.PNG :
-            format.equals(SNAPSHOT_FORMAT_JPG) ? Bitmap.CompressFormat.JPEG : null;
     final double quality = options.hasKey("quality") ? options.getDouble("quality") : 1.0;
+    final Bitmap.CompressFormat compressFormat = compressFormatOf(format, quality);
+    if (compressFormat == null) {
+      promise.reject("Unsupported snapshot format: " + format);
+      return;
+    }
     final DisplayMetrics displayMetrics = context.getResources().getDisplayMetrics();
     final Integer width =
         options.hasKey("width") ? (int) (displayMetrics.density * options.getDouble("width")) : 0;
     final Integer height =
         options.hasKey("height") ? (int) (displayMetrics.density * options.getDouble("height")) : 0;
     final String result = options.hasKey("result") ? options.getString("result") : "file";
+    final boolean includeEncodeTime =
+        options.hasKey("includeEncodeTime") && options.getBoolean("includeEncodeTime");
 
     // Add UI-block so we can get a valid reference to the map-view
     UIManagerModule uiManager = context.getNativeModule(UIManagerModule.class);
@@ -101,48 +122,443 @@ public class AirMapModule extends ReactContextBaseJavaModule {
           return;
         }
         view.map.snapshot(new GoogleMap.SnapshotReadyCallback() {
-          public void onSnapshotReady(@Nullable Bitmap snapshot) {
-
-            // Convert image to requested width/height if necessary
+          public void onSnapshotReady(@Nullable final Bitmap snapshot) {
             if (snapshot == null) {
               promise.reject("Failed to generate bitmap, snapshot = null");
               return;
             }
-            if ((width != 0) && (height != 0) &&
-                (width != snapshot.getWidth() || height != snapshot.getHeight())) {
-              snapshot = Bitmap.createScaledBitmap(snapshot, width, height, true);
-            }
-
-            // Save the snapshot to disk
-            if (result.equals(SNAPSHOT_RESULT_FILE)) {
-              File tempFile;
-              FileOutputStream outputStream;
-              try {
-                tempFile =
-                    File.createTempFile("AirMapSnapshot", "." + format, context.getCacheDir());
-                outputStream = new FileOutputStream(tempFile);
-              } catch (Exception e) {
-                promise.reject(e);
-                return;
+            // scaling and encoding a large bitmap takes long enough to drop frames
+            AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+              @Override
+              public void run() {
+                encodeSnapshot(context, snapshot, width, height, compressFormat, format, quality,
+                    result, includeEncodeTime, promise);
               }
-              snapshot.compress(compressFormat, (int) (100.0 * quality), outputStream);
-              closeQuietly(outputStream);
-              String uri = Uri.fromFile(tempFile).toString();
-              promise.resolve(uri);
-            } else if (result.equals(SNAPSHOT_RESULT_BASE64)) {
-              ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-              snapshot.compress(compressFormat, (int) (100.0 * quality), outputStream);
-              closeQuietly(outputStream);
-              byte[] bytes = outputStream.toByteArray();
-              String data = Base64.encodeToString(bytes, Base64.NO_WRAP);
-              promise.resolve(data);
-            }
+            });
           }
         });
       }
     });
   }
 
+  /**
+   * @return the compress format of a snapshot format, or null for an unknown format.
+   */
+  @Nullable
+  private static Bitmap.CompressFormat compressFormatOf(String format, double quality) {
+    if (format.equals(SNAPSHOT_FORMAT_PNG)) {
+      return Bitmap.CompressFormat.PNG;
+    }
+    if (format.equals(SNAPSHOT_FORMAT_JPG)) {
+      return Bitmap.CompressFormat.JPEG;
+    }
+    if (format.equals(SNAPSHOT_FORMAT_WEBP)) {
+      // WEBP is deprecated as of R (30), its lossy and lossless replacements are looked up by
+      // name since they aren't in the SDK this library compiles against
+      if (Build.VERSION.SDK_INT >= 30) {
+        return Bitmap.CompressFormat.valueOf(quality >= 1.0 ? "WEBP_LOSSLESS" : "WEBP_LOSSY");
+      }
+      return Bitmap.CompressFormat.WEBP;
+    }
+    return null;
+  }
+
+  /**
+   * Scales the snapshot to the requested size and writes it to a file or encodes it to base64.
+   * Runs on a background thread.
+   */
+  private static void encodeSnapshot(ReactApplicationContext context, Bitmap snapshot, int width,
+      int height, Bitmap.CompressFormat compressFormat, String format, double quality,
+      String result, boolean includeEncodeTime, Promise promise) {
+    long start = SystemClock.uptimeMillis();
+
+    Bitmap bitmap = snapshot;
+    String data = null;
+    OutputStream outputStream = null;
+    try {
+      // Convert image to requested width/height if necessary
+      if ((width != 0) && (height != 0) &&
+          (width != snapshot.getWidth() || height != snapshot.getHeight())) {
+        bitmap = Bitmap.createScaledBitmap(snapshot, width, height, true);
+      }
+
+      if (result.equals(SNAPSHOT_RESULT_FILE)) {
+        // Save the snapshot to disk
+        File tempFile =
+            File.createTempFile("AirMapSnapshot", "." + format, context.getCacheDir());
+        outputStream = new BufferedOutputStream(new FileOutputStream(tempFile));
+        bitmap.compress(compressFormat, (int) (100.0 * quality), outputStream);
+        outputStream.close();
+        data = Uri.fromFile(tempFile).toString();
+      } else if (result.equals(SNAPSHOT_RESULT_BASE64)) {
+        // encoded while compressing, the compressed bytes are never held in full
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        outputStream = new Base64OutputStream(encoded, Base64.NO_WRAP);
+        bitmap.compress(compressFormat, (int) (100.0 * quality), outputStream);
+        outputStream.close();
+        data = encoded.toString("US-ASCII");
+      }
+    } catch (IOException e) {
+      closeQuietly(outputStream);
+      promise.reject(e);
+      return;
+    } catch (RuntimeException e) {
+      // nothing else would settle the promise on this background thread
+      closeQuietly(outputStream);
+      promise.reject(e);
+      return;
+    } finally {
+      if (bitmap != snapshot) {
+        bitmap.recycle();
+      }
+    }
+
+    if (!includeEncodeTime) {
+      promise.resolve(data);
+      return;
+    }
+    WritableMap map = new WritableNativeMap();
+    map.putString("data", data);
+    map.putDouble("encodeTimeMs", SystemClock.uptimeMillis() - start);
+    promise.resolve(map);
+  }
+
+  /**
+   * Projects packed [latitude, longitude, ...] pairs to packed [x, y, ...] view points, using one
+   * projection snapshot for the whole batch.
+   */
+  @ReactMethod
+  public void pointsForCoordinates(final int tag, ReadableArray coordinates,
+      final Promise promise) {
+    final ReactApplicationContext context = getReactApplicationContext();
+    final double density = (double) context.getResources().getDisplayMetrics().density;
+    final double[] packed = toDoubleArray(coordinates);
+
+    UIManagerModule uiManager = context.getNativeModule(UIManagerModule.class);
+    uiManager.addUIBlock(new UIBlock()
+    {
+      @Override
+      public void execute(NativeViewHierarchyManager nvhm)
+      {
+        AirMapView view = (AirMapView) nvhm.resolveView(tag);
+        if (view == null) {
+          promise.reject("AirMapView not found");
+          return;
+        }
+        if (view.map == null) {
+          promise.reject("AirMapView.map is not valid");
+          return;
+        }
+
+        Projection projection = view.map.getProjection();
+        WritableArray points = new WritableNativeArray();
+        for (int i = 0; i + 1 < packed.length; i += 2) {
+          Point pt = projection.toScreenLocation(new LatLng(packed[i], packed[i + 1]));
+          points.pushDouble((double)pt.x / density);
+          points.pushDouble((double)pt.y / density);
+        }
+
+        promise.resolve(points);
+      }
+    });
+  }
+
+  /**
+   * Projects packed [x, y, ...] view points to packed [latitude, longitude, ...] pairs, using one
+   * projection snapshot for the whole batch.
+   */
+  @ReactMethod
+  public void coordinatesForPoints(final int tag, ReadableArray points, final Promise promise) {
+    final ReactApplicationContext context = getReactApplicationContext();
+    final double density = (double) context.getResources().getDisplayMetrics().density;
+    final double[] packed = toDoubleArray(points);
+
+    UIManagerModule uiManager = context.getNativeModule(UIManagerModule.class);
+    uiManager.addUIBlock(new UIBlock()
+    {
+      @Override
+      public void execute(NativeViewHierarchyManager nvhm)
+      {
+        AirMapView view = (AirMapView) nvhm.resolveView(tag);
+        if (view == null) {
+          promise.reject("AirMapView not found");
+          return;
+        }
+        if (view.map == null) {
+          promise.reject("AirMapView.map is not valid");
+          return;
+        }
+
+        Projection projection = view.map.getProjection();
+        WritableArray coordinates = new WritableNativeArray();
+        Point pt = new Point();
+        for (int i = 0; i + 1 < packed.length; i += 2) {
+          pt.set((int) (packed[i] * density), (int) (packed[i + 1] * density));
+          LatLng coord = projection.fromScreenLocation(pt);
+          coordinates.pushDouble(coord.latitude);
+          coordinates.pushDouble(coord.longitude);
+        }
+
+        promise.resolve(coordinates);
+      }
+    });
+  }
+
+  private static double[] toDoubleArray(ReadableArray array) {
+    double[] result = new double[array.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = array.getDouble(i);
+    }
+    return result;
+  }
+
+  /**
+   * @return the coordinate under the key of the map, or null when it or its latitude or longitude
+   * is missing. Unlike getMap/getDouble, never throws for missing keys.
+   */
+  @Nullable
+  private static LatLng toLatLng(@Nullable ReadableMap map, String key) {
+    if (map == null || !map.hasKey(key) || map.isNull(key)) {
+      return null;
+    }
+    ReadableMap coordinate = map.getMap(key);
+    if (coordinate == null || !coordinate.hasKey("latitude") || !coordinate.hasKey("longitude") ||
+        coordinate.isNull("latitude") || coordinate.isNull("longitude")) {
+      return null;
+    }
+    return new LatLng(coordinate.getDouble("latitude"), coordinate.getDouble("longitude"));
+  }
+
+  /**
+   * Identifiers of the markers, polylines and polygons intersecting the given bounds, grouped by
+   * type. Features without an identifier are left out.
+   */
+  @ReactMethod
+  public void getFeaturesInRegion(final int tag, ReadableMap bounds,
+      @Nullable ReadableArray types, final Promise promise) {
+    final ReactApplicationContext context = getReactApplicationContext();
+
+    LatLng northEast = toLatLng(bounds, "northEast");
+    LatLng southWest = toLatLng(bounds, "southWest");
+    if (northEast == null || southWest == null || southWest.latitude > northEast.latitude) {
+      promise.reject("Invalid bounds, expected northEast and southWest coordinates");
+      return;
+    }
+    final LatLngBounds region = new LatLngBounds(southWest, northEast);
+
+    final Set<String> typeSet = new HashSet<>();
+    if (types != null) {
+      for (int i = 0; i < types.size(); i++) {
+        typeSet.add(types.getString(i));
+      }
+    }
+
+    UIManagerModule uiManager = context.getNativeModule(UIManagerModule.class);
+    uiManager.addUIBlock(new UIBlock()
+    {
+      @Override
+      public void execute(NativeViewHierarchyManager nvhm)
+      {
+        AirMapView view = (AirMapView) nvhm.resolveView(tag);
+        if (view == null) {
+          promise.reject("AirMapView not found");
+          return;
+        }
+
+        WritableArray markers = new WritableNativeArray();
+        WritableArray polylines = new WritableNativeArray();
+        WritableArray polygons = new WritableNativeArray();
+        for (AirMapFeature feature : view.featureIndex.query(region)) {
+          String identifier = feature.getIdentifier();
+          if (identifier == null) {
+            continue;
+          }
+          if (feature instanceof AirMapMarker) {
+            markers.pushString(identifier);
+          } else if (feature instanceof AirMapPolyline) {
+            polylines.pushString(identifier);
+          } else if (feature instanceof AirMapPolygon) {
+            polygons.pushString(identifier);
+          }
+        }
+
+        WritableMap result = new WritableNativeMap();
+        if (typeSet.isEmpty() || typeSet.contains("marker")) {
+          result.putArray("markers", markers);
+        }
+        if (typeSet.isEmpty() || typeSet.contains("polyline")) {
+          result.putArray("polylines", polylines);
+        }
+        if (typeSet.isEmpty() || typeSet.contains("polygon")) {
+          result.putArray("polygons", polygons);
+        }
+        promise.resolve(result);
+      }
+    });
+  }
+
+  /**
+   * Renders each request to a file with one hidden lite mode map, emitting
+   * StaticMapRenderer.PROGRESS_EVENT after every request.
+   */
+  @ReactMethod
+  public void renderStaticMaps(String batchId, ReadableArray requests, Promise promise) {
+    synchronized (this) {
+      if (staticMapRenderer == null) {
+        staticMapRenderer = new StaticMapRenderer(getReactApplicationContext());
+      }
+    }
+    staticMapRenderer.render(batchId, requests, promise);
+  }
+
+  /**
+   * Loads remote marker images into the shared icon store of the markers, decoded at the given
+   * size in points and bitmap config as with the imageSize and imageConfig marker props.
+   * Resolves with how many images were loaded and how many failed.
+   */
+  @ReactMethod
+  public void prefetchMarkerImages(ReadableArray uris, @Nullable ReadableMap size,
+      @Nullable String config, final Promise promise) {
+    final ReactApplicationContext context = getReactApplicationContext();
+    AirMapMarkerManager markerManager = AirMapMarkerManager.get(context);
+    if (markerManager == null) {
+      promise.reject("AirMapModule.prefetchMarkerImages: markers are not available yet");
+      return;
+    }
+
+    int width = 0;
+    int height = 0;
+    if (size != null) {
+      float density = context.getResources().getDisplayMetrics().density;
+      width = Math.round(density * (float) size.getDouble("width"));
+      height = Math.round(density * (float) size.getDouble("height"));
+    }
+    Bitmap.Config bitmapConfig =
+        "RGB_565".equals(config) ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+
+    Set<String> remoteUris = new HashSet<>();
+    for (int i = 0; i < uris.size(); i++) {
+      String uri = uris.getString(i);
+      if (uri != null && AirMapMarker.isRemoteImage(uri)) {
+        remoteUris.add(uri);
+      }
+    }
+
+    final AtomicInteger remaining = new AtomicInteger(remoteUris.size());
+    final AtomicInteger loaded = new AtomicInteger();
+    final AtomicInteger failed = new AtomicInteger();
+    AirMapMarkerManager.PrefetchCallback callback = new AirMapMarkerManager.PrefetchCallback() {
+      @Override
+      public void onPrefetched(boolean success) {
+        (success ? loaded : failed).incrementAndGet();
+        if (remaining.decrementAndGet() == 0) {
+          WritableMap result = new WritableNativeMap();
+          result.putInt("loaded", loaded.get());
+          result.putInt("failed", failed.get());
+          promise.resolve(result);
+        }
+      }
+    };
+    if (remoteUris.isEmpty()) {
+      WritableMap result = new WritableNativeMap();
+      result.putInt("loaded", 0);
+      result.putInt("failed", 0);
+      promise.resolve(result);
+      return;
+    }
+    for (String uri : remoteUris) {
+      markerManager.prefetchIcon(context, uri, width, height, bitmapConfig, callback);
+    }
+  }
+
+  @ReactMethod
+  public void setMapViewPoolSize(final int size) {
+    final ReactApplicationContext context = getReactApplicationContext();
+
+    UIManagerModule uiManager = context.getNativeModule(UIManagerModule.class);
+    uiManager.addUIBlock(new UIBlock()
+    {
+      @Override
+      public void execute(NativeViewHierarchyManager nvhm)
+      {
+        AirMapViewPool.get(context).setSize(size);
+      }
+    });
+  }
+
+  @ReactMethod
+  public void getTileMetrics(final boolean reset, final Promise promise) {
+    promise.resolve(AirMapTileMetrics.getInstance().toWritableMap(reset));
+  }
+
+  @ReactMethod
+  public void getRegionChangeStats(final int tag, final boolean reset, final Promise promise) {
+    final ReactApplicationContext context = getReactApplicationContext();
+
+    UIManagerModule uiManager = context.getNativeModule(UIManagerModule.class);
+    uiManager.addUIBlock(new UIBlock()
+    {
+      @Override
+      public void execute(NativeViewHierarchyManager nvhm)
+      {
+        AirMapView view = (AirMapView) nvhm.resolveView(tag);
+        if (view == null) {
+          promise.reject("AirMapView not found");
+          return;
+        }
+
+        promise.resolve(view.regionChangeStats.toWritableMap(reset));
+      }
+    });
+  }
+
+  @ReactMethod
+  public void getFeatureStats(final int tag, final Promise promise) {
+    final ReactApplicationContext context = getReactApplicationContext();
+
+    UIManagerModule uiManager = context.getNativeModule(UIManagerModule.class);
+    uiManager.addUIBlock(new UIBlock()
+    {
+      @Override
+      public void execute(NativeViewHierarchyManager nvhm)
+      {
+        AirMapView view = (AirMapView) nvhm.resolveView(tag);
+        if (view == null) {
+          promise.reject("AirMapView not found");
+          return;
+        }
+
+        promise.resolve(view.getFeatureStats());
+      }
+    });
+  }
+
+  @ReactMethod
+  public void getMapSettings(final int tag, final Promise promise) {
+    final ReactApplicationContext context = getReactApplicationContext();
+
+    UIManagerModule uiManager = context.getNativeModule(UIManagerModule.class);
+    uiManager.addUIBlock(new UIBlock()
+    {
+      @Override
+      public void execute(NativeViewHierarchyManager nvhm)
+      {
+        AirMapView view = (AirMapView) nvhm.resolveView(tag);
+        if (view == null) {
+          promise.reject("AirMapView not found");
+          return;
+        }
+        WritableMap settings = view.getMapSettings();
+        if (settings == null) {
+          promise.reject("Map is not ready");
+          return;
+        }
+
+        promise.resolve(settings);
+      }
+    });
+  }
+
   @ReactMethod
   public void getCamera(final int tag, final Promise promise) {
     final ReactApplicationContext context = getReactApplicationContext();
@@ -41,6 +41,7 @@ public class AirMapOverlay extends AirMapFeature implements ImageReadable {
     if (this.groundOverlay != null) {
       this.groundOverlay.setPositionFromBounds(this.bounds);
     }
+    notifyGeometryChange();
   }
 
   public void setZIndex(float zIndex) {
@@ -95,6 +96,11 @@ public class AirMapOverlay extends AirMapFeature implements ImageReadable {
     return options;
   }
 
+  @Override
+  public LatLngBounds getGeometryBounds() {
+    return bounds;
+  }
+
   @Override
   public Object getFeature() {
     return groundOverlay;
@@ -134,7 +140,11 @@ public class AirMapOverlay extends AirMapFeature implements ImageReadable {
 
   @Override
   public void update() {
+    GroundOverlay previous = this.groundOverlay;
     this.groundOverlay = getGroundOverlay();
+    if (this.groundOverlay != previous) {
+      notifyNativeObjectChange();
+    }
     if (this.groundOverlay != null) {
       this.groundOverlay.setVisible(true);
       this.groundOverlay.setImage(this.iconBitmapDescriptor);
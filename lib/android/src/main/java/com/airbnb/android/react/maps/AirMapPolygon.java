@@ -6,18 +6,31 @@ import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
 import com.google.android.gms.maps.model.Polygon;
 import com.google.android.gms.maps.model.PolygonOptions;
+import com.google.maps.android.PolyUtil;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class AirMapPolygon extends AirMapFeature {
 
+  private static final int DIRTY_POINTS = 1;
+  private static final int DIRTY_HOLES = 1 << 1;
+  private static final int DIRTY_FILL_COLOR = 1 << 2;
+  private static final int DIRTY_STROKE_COLOR = 1 << 3;
+  private static final int DIRTY_STROKE_WIDTH = 1 << 4;
+  private static final int DIRTY_TAPPABLE = 1 << 5;
+  private static final int DIRTY_GEODESIC = 1 << 6;
+  private static final int DIRTY_Z_INDEX = 1 << 7;
+
   private PolygonOptions polygonOptions;
   private Polygon polygon;
 
   private List<LatLng> coordinates;
+  private LatLngBounds bounds;
+  private String identifier;
   private List<List<LatLng>> holes;
   private int strokeColor;
   private int fillColor;
@@ -38,9 +51,21 @@ public class AirMapPolygon extends AirMapFeature {
       this.coordinates.add(i,
           new LatLng(coordinate.getDouble("latitude"), coordinate.getDouble("longitude")));
     }
-    if (polygon != null) {
+    if (canUpdate(DIRTY_POINTS)) {
       polygon.setPoints(this.coordinates);
     }
+    bounds = LatLngBoundsUtils.BoundsOf(this.coordinates);
+    notifyGeometryChange();
+  }
+
+  public void setIdentifier(String identifier) {
+    this.identifier = identifier;
+    notifyIdentifierChange();
+  }
+
+  @Override
+  public String getIdentifier() {
+    return identifier;
   }
 
   public void setHoles(ReadableArray holes) {
@@ -69,7 +94,7 @@ public class AirMapPolygon extends AirMapFeature {
       this.holes.add(coordinates);
     }
 
-    if (polygon != null) {
+    if (canUpdate(DIRTY_HOLES)) {
       polygon.setHoles(this.holes);
     }
   }
@@ -77,42 +102,42 @@ public class AirMapPolygon extends AirMapFeature {
 
   public void setFillColor(int color) {
     this.fillColor = color;
-    if (polygon != null) {
+    if (canUpdate(DIRTY_FILL_COLOR)) {
       polygon.setFillColor(color);
     }
   }
 
   public void setStrokeColor(int color) {
     this.strokeColor = color;
-    if (polygon != null) {
+    if (canUpdate(DIRTY_STROKE_COLOR)) {
       polygon.setStrokeColor(color);
     }
   }
 
   public void setStrokeWidth(float width) {
     this.strokeWidth = width;
-    if (polygon != null) {
+    if (canUpdate(DIRTY_STROKE_WIDTH)) {
       polygon.setStrokeWidth(width);
     }
   }
 
   public void setTappable(boolean tapabble) {
     this.tappable = tapabble;
-    if (polygon != null) {
+    if (canUpdate(DIRTY_TAPPABLE)) {
       polygon.setClickable(tappable);
     }
   }
 
   public void setGeodesic(boolean geodesic) {
     this.geodesic = geodesic;
-    if (polygon != null) {
+    if (canUpdate(DIRTY_GEODESIC)) {
       polygon.setGeodesic(geodesic);
     }
   }
 
   public void setZIndex(float zIndex) {
     this.zIndex = zIndex;
-    if (polygon != null) {
+    if (canUpdate(DIRTY_Z_INDEX)) {
       polygon.setZIndex(zIndex);
     }
   }
@@ -147,6 +172,31 @@ public class AirMapPolygon extends AirMapFeature {
     return polygon;
   }
 
+  @Override
+  public LatLngBounds getGeometryBounds() {
+    return bounds;
+  }
+
+  // holes are ignored, a region inside a hole still counts as intersecting the polygon
+  @Override
+  public boolean intersects(LatLngBounds bounds) {
+    return super.intersects(bounds) &&
+        (LatLngBoundsUtils.PathIntersects(coordinates, true, bounds) ||
+            PolyUtil.containsLocation(bounds.getCenter(), coordinates, geodesic));
+  }
+
+  @Override
+  protected void applyDeferredUpdates(int fields) {
+    if ((fields & DIRTY_POINTS) != 0) polygon.setPoints(coordinates);
+    if ((fields & DIRTY_HOLES) != 0) polygon.setHoles(holes);
+    if ((fields & DIRTY_FILL_COLOR) != 0) polygon.setFillColor(fillColor);
+    if ((fields & DIRTY_STROKE_COLOR) != 0) polygon.setStrokeColor(strokeColor);
+    if ((fields & DIRTY_STROKE_WIDTH) != 0) polygon.setStrokeWidth(strokeWidth);
+    if ((fields & DIRTY_TAPPABLE) != 0) polygon.setClickable(tappable);
+    if ((fields & DIRTY_GEODESIC) != 0) polygon.setGeodesic(geodesic);
+    if ((fields & DIRTY_Z_INDEX) != 0) polygon.setZIndex(zIndex);
+  }
+
   @Override
   public void addToMap(GoogleMap map) {
     polygon = map.addPolygon(getPolygonOptions());
@@ -73,6 +73,11 @@ public class AirMapPolygonManager extends ViewGroupManager<AirMapPolygon> {
     view.setTappable(tapabble);
   }
 
+  @ReactProp(name = "identifier")
+  public void setIdentifier(AirMapPolygon view, String identifier) {
+    view.setIdentifier(identifier);
+  }
+
   @ReactProp(name = "geodesic", defaultBoolean = false)
   public void setGeodesic(AirMapPolygon view, boolean geodesic) {
     view.setGeodesic(geodesic);
@@ -10,6 +10,7 @@ import com.google.android.gms.maps.model.Dash;
 import com.google.android.gms.maps.model.Dot;
 import com.google.android.gms.maps.model.Gap;
 import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
 import com.google.android.gms.maps.model.PatternItem;
 import com.google.android.gms.maps.model.Polyline;
 import com.google.android.gms.maps.model.PolylineOptions;
@@ -20,10 +21,21 @@ import java.util.List;
 
 public class AirMapPolyline extends AirMapFeature {
 
+  private static final int DIRTY_POINTS = 1;
+  private static final int DIRTY_COLOR = 1 << 1;
+  private static final int DIRTY_WIDTH = 1 << 2;
+  private static final int DIRTY_Z_INDEX = 1 << 3;
+  private static final int DIRTY_TAPPABLE = 1 << 4;
+  private static final int DIRTY_GEODESIC = 1 << 5;
+  private static final int DIRTY_LINE_CAP = 1 << 6;
+  private static final int DIRTY_PATTERN = 1 << 7;
+
   private PolylineOptions polylineOptions;
   private Polyline polyline;
 
   private List<LatLng> coordinates;
+  private LatLngBounds bounds;
+  private String identifier;
   private int color;
   private float width;
   private boolean tappable;
@@ -44,49 +56,61 @@ public class AirMapPolyline extends AirMapFeature {
       this.coordinates.add(i,
           new LatLng(coordinate.getDouble("latitude"), coordinate.getDouble("longitude")));
     }
-    if (polyline != null) {
+    if (canUpdate(DIRTY_POINTS)) {
       polyline.setPoints(this.coordinates);
     }
+    bounds = LatLngBoundsUtils.BoundsOf(this.coordinates);
+    notifyGeometryChange();
+  }
+
+  public void setIdentifier(String identifier) {
+    this.identifier = identifier;
+    notifyIdentifierChange();
+  }
+
+  @Override
+  public String getIdentifier() {
+    return identifier;
   }
 
   public void setColor(int color) {
     this.color = color;
-    if (polyline != null) {
+    if (canUpdate(DIRTY_COLOR)) {
       polyline.setColor(color);
     }
   }
 
   public void setWidth(float width) {
     this.width = width;
-    if (polyline != null) {
+    if (canUpdate(DIRTY_WIDTH)) {
       polyline.setWidth(width);
     }
   }
 
   public void setZIndex(float zIndex) {
     this.zIndex = zIndex;
-    if (polyline != null) {
+    if (canUpdate(DIRTY_Z_INDEX)) {
       polyline.setZIndex(zIndex);
     }
   }
 
   public void setTappable(boolean tapabble) {
     this.tappable = tapabble;
-    if (polyline != null) {
+    if (canUpdate(DIRTY_TAPPABLE)) {
       polyline.setClickable(tappable);
     }
   }
 
   public void setGeodesic(boolean geodesic) {
     this.geodesic = geodesic;
-    if (polyline != null) {
+    if (canUpdate(DIRTY_GEODESIC)) {
       polyline.setGeodesic(geodesic);
     }
   }
 
   public void setLineCap(Cap cap) {
     this.lineCap = cap;
-    if (polyline != null) {
+    if (canUpdate(DIRTY_LINE_CAP)) {
       polyline.setStartCap(cap);
       polyline.setEndCap(cap);
     }
@@ -119,7 +143,7 @@ public class AirMapPolyline extends AirMapFeature {
         this.pattern.add(patternItem);
       }
     }
-    if(polyline != null) {
+    if(canUpdate(DIRTY_PATTERN)) {
       polyline.setPattern(this.pattern);
     }
   }
@@ -149,6 +173,32 @@ public class AirMapPolyline extends AirMapFeature {
     return polyline;
   }
 
+  @Override
+  public LatLngBounds getGeometryBounds() {
+    return bounds;
+  }
+
+  @Override
+  public boolean intersects(LatLngBounds bounds) {
+    return super.intersects(bounds) &&
+        LatLngBoundsUtils.PathIntersects(coordinates, false, bounds);
+  }
+
+  @Override
+  protected void applyDeferredUpdates(int fields) {
+    if ((fields & DIRTY_POINTS) != 0) polyline.setPoints(coordinates);
+    if ((fields & DIRTY_COLOR) != 0) polyline.setColor(color);
+    if ((fields & DIRTY_WIDTH) != 0) polyline.setWidth(width);
+    if ((fields & DIRTY_Z_INDEX) != 0) polyline.setZIndex(zIndex);
+    if ((fields & DIRTY_TAPPABLE) != 0) polyline.setClickable(tappable);
+    if ((fields & DIRTY_GEODESIC) != 0) polyline.setGeodesic(geodesic);
+    if ((fields & DIRTY_LINE_CAP) != 0) {
+      polyline.setStartCap(lineCap);
+      polyline.setEndCap(lineCap);
+    }
+    if ((fields & DIRTY_PATTERN) != 0) polyline.setPattern(pattern);
+  }
+
   @Override
   public void addToMap(GoogleMap map) {
     polyline = map.addPolyline(getPolylineOptions());
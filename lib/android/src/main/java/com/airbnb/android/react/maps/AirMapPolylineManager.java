@@ -67,6 +67,11 @@ public class AirMapPolylineManager extends ViewGroupManager<AirMapPolyline> {
     view.setTappable(tapabble);
   }
 
+  @ReactProp(name = "identifier")
+  public void setIdentifier(AirMapPolyline view, String identifier) {
+    view.setIdentifier(identifier);
+  }
+
   @ReactProp(name = "geodesic", defaultBoolean = false)
   public void setGeodesic(AirMapPolyline view, boolean geodesic) {
     view.setGeodesic(geodesic);
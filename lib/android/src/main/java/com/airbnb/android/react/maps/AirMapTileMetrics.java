@@ -0,0 +1,147 @@
+package com.airbnb.android.react.maps;
+
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeMap;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process-wide counters and latency histograms for the tile providers.
+ *
+ * Tile providers are called by the Maps SDK from several background threads at once, so every
+ * recorder is synchronized and kept allocation free.
+ */
+public class AirMapTileMetrics {
+
+  public static final String URL_TILE = "urlTile";
+  public static final String WMS_TILE = "wmsTile";
+  public static final String LOCAL_TILE = "localTile";
+  public static final String GRADIENT_POLYLINE = "gradientPolyline";
+
+  private static volatile AirMapTileMetrics instance;
+
+  private final Map<String, Recorder> recorders = new LinkedHashMap<>();
+
+  private AirMapTileMetrics() {
+    recorders.put(URL_TILE, new Recorder());
+    recorders.put(WMS_TILE, new Recorder());
+    recorders.put(LOCAL_TILE, new Recorder());
+    recorders.put(GRADIENT_POLYLINE, new Recorder());
+  }
+
+  static AirMapTileMetrics getInstance() {
+    if (instance == null) {
+      synchronized (AirMapTileMetrics.class) {
+        if (instance == null) {
+          instance = new AirMapTileMetrics();
+        }
+      }
+    }
+
+    return instance;
+  }
+
+  public Recorder get(String provider) {
+    return recorders.get(provider);
+  }
+
+  public WritableMap toWritableMap() {
+    return toWritableMap(false);
+  }
+
+  /**
+   * @param reset whether to reset every recorder as it is read, nothing recorded in between is
+   * lost.
+   */
+  public WritableMap toWritableMap(boolean reset) {
+    WritableMap result = new WritableNativeMap();
+    for (Map.Entry<String, Recorder> entry : recorders.entrySet()) {
+      result.putMap(entry.getKey(), entry.getValue().toWritableMap(reset));
+    }
+    return result;
+  }
+
+  public static class Recorder {
+    // Bucket i counts samples below 2^i microseconds, so the last bucket covers ~33 seconds.
+    private static final int BUCKET_COUNT = 26;
+
+    private final long[] buckets = new long[BUCKET_COUNT];
+    private long requests;
+    private long hits;
+    private long misses;
+    private long bytes;
+    private long totalMicros;
+
+    /**
+     * Record one provider call.
+     *
+     * @param startNanos value of System.nanoTime() taken when the call started
+     * @param hit whether the provider produced a tile (or a url to one)
+     * @param byteCount number of tile bytes produced, 0 if not known
+     */
+    public synchronized void record(long startNanos, boolean hit, long byteCount) {
+      long micros = Math.max(0, (System.nanoTime() - startNanos) / 1000);
+
+      requests++;
+      if (hit) {
+        hits++;
+      } else {
+        misses++;
+      }
+      bytes += byteCount;
+      totalMicros += micros;
+
+      int bucket = 64 - Long.numberOfLeadingZeros(micros);
+      buckets[Math.min(bucket, BUCKET_COUNT - 1)]++;
+    }
+
+    public synchronized void reset() {
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        buckets[i] = 0;
+      }
+      requests = 0;
+      hits = 0;
+      misses = 0;
+      bytes = 0;
+      totalMicros = 0;
+    }
+
+    /**
+     * @return upper bound, in milliseconds, of the bucket holding the given percentile.
+     */
+    private double percentile(double percentile) {
+      if (requests == 0) {
+        return 0;
+      }
+      long threshold = (long) Math.ceil(requests * percentile);
+      long seen = 0;
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        seen += buckets[i];
+        if (seen >= threshold) {
+          return (1L << i) / 1000.0;
+        }
+      }
+      return (1L << (BUCKET_COUNT - 1)) / 1000.0;
+    }
+
+    public synchronized WritableMap toWritableMap(boolean reset) {
+      WritableMap latency = new WritableNativeMap();
+      latency.putDouble("mean", requests == 0 ? 0 : totalMicros / 1000.0 / requests);
+      latency.putDouble("p50", percentile(0.50));
+      latency.putDouble("p95", percentile(0.95));
+      latency.putDouble("p99", percentile(0.99));
+
+      WritableMap result = new WritableNativeMap();
+      result.putDouble("requests", requests);
+      result.putDouble("hits", hits);
+      result.putDouble("misses", misses);
+      result.putDouble("bytes", bytes);
+      result.putMap("latency", latency);
+      if (reset) {
+        reset();
+      }
+      return result;
+    }
+  }
+}
@@ -5,24 +5,25 @@ import android.content.Context;
 import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.model.TileOverlay;
 import com.google.android.gms.maps.model.TileOverlayOptions;
-import com.google.android.gms.maps.model.UrlTileProvider;
 
 import java.net.MalformedURLException;
 import java.net.URL;
 
 public class AirMapUrlTile extends AirMapFeature {
 
-  class AIRMapUrlTileProvider extends UrlTileProvider {
+  private static final int DIRTY_TILES = 1;
+  private static final int DIRTY_Z_INDEX = 1 << 1;
+
+  class AIRMapUrlTileProvider extends MeasuredUrlTileProvider {
     private String urlTemplate;
 
     public AIRMapUrlTileProvider(int width, int height, String urlTemplate) {
-      super(width, height);
+      super(AirMapTileMetrics.URL_TILE, width, height);
       this.urlTemplate = urlTemplate;
     }
 
     @Override
     public synchronized URL getTileUrl(int x, int y, int zoom) {
-
       if (AirMapUrlTile.this.flipY == true) {
         y = (1 << zoom) - y - 1;
       }
@@ -73,35 +74,35 @@ public class AirMapUrlTile extends AirMapFeature {
     if (tileProvider != null) {
       tileProvider.setUrlTemplate(urlTemplate);
     }
-    if (tileOverlay != null) {
+    if (canUpdate(DIRTY_TILES)) {
       tileOverlay.clearTileCache();
     }
   }
 
   public void setZIndex(float zIndex) {
     this.zIndex = zIndex;
-    if (tileOverlay != null) {
+    if (canUpdate(DIRTY_Z_INDEX)) {
       tileOverlay.setZIndex(zIndex);
     }
   }
 
   public void setMaximumZ(float maximumZ) {
     this.maximumZ = maximumZ;
-    if (tileOverlay != null) {
+    if (canUpdate(DIRTY_TILES)) {
       tileOverlay.clearTileCache();
     }
   }
 
   public void setMinimumZ(float minimumZ) {
     this.minimumZ = minimumZ;
-    if (tileOverlay != null) {
+    if (canUpdate(DIRTY_TILES)) {
       tileOverlay.clearTileCache();
     }
   }
 
   public void setFlipY(boolean flipY) {
     this.flipY = flipY;
-    if (tileOverlay != null) {
+    if (canUpdate(DIRTY_TILES)) {
       tileOverlay.clearTileCache();
     }
   }
@@ -126,6 +127,12 @@ public class AirMapUrlTile extends AirMapFeature {
     return tileOverlay;
   }
 
+  @Override
+  protected void applyDeferredUpdates(int fields) {
+    if ((fields & DIRTY_TILES) != 0) tileOverlay.clearTileCache();
+    if ((fields & DIRTY_Z_INDEX) != 0) tileOverlay.setZIndex(zIndex);
+  }
+
   @Override
   public void addToMap(GoogleMap map) {
     this.tileOverlay = map.addTileOverlay(getTileOverlayOptions());
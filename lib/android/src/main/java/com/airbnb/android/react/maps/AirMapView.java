@@ -9,6 +9,9 @@ import android.graphics.Point;
 import android.graphics.PorterDuff;
 import android.graphics.Rect;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import androidx.core.view.GestureDetectorCompat;
 import androidx.core.view.MotionEventCompat;
 import android.view.GestureDetector;
@@ -45,12 +48,12 @@ import com.google.android.gms.maps.model.CameraPosition;
 import com.google.android.gms.maps.model.GroundOverlay;
 import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.android.gms.maps.model.MapStyleOptions;
 import com.google.android.gms.maps.model.Marker;
 import com.google.android.gms.maps.model.MarkerOptions;
 import com.google.android.gms.maps.model.PointOfInterest;
 import com.google.android.gms.maps.model.Polygon;
 import com.google.android.gms.maps.model.Polyline;
-import com.google.android.gms.maps.model.TileOverlay;
 import com.google.android.gms.maps.model.VisibleRegion;
 import com.google.android.gms.maps.model.IndoorBuilding;
 import com.google.android.gms.maps.model.IndoorLevel;
@@ -62,13 +65,13 @@ import com.google.maps.android.data.kml.KmlStyle;
 import org.xmlpull.v1.XmlPullParserException;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ExecutionException;
+import java.util.Locale;
+import java.util.Set;
 
 import static androidx.core.content.PermissionChecker.checkSelfPermission;
 
@@ -76,6 +79,13 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
     GoogleMap.OnMarkerDragListener, OnMapReadyCallback, GoogleMap.OnPoiClickListener, GoogleMap.OnIndoorStateChangeListener {
   public GoogleMap map;
   private KmlLayer kmlLayer;
+  private KmlLoader kmlLoader;
+  // a kml source set before the map was ready, its KmlLayer needs the map
+  private String pendingKmlSrc;
+  // a loaded kml layer waiting for the map to resume, see flushFeatureChanges
+  private KmlLayer pendingKmlLayer;
+  private KmlMarkerBatch kmlMarkerBatch;
+  private static final int KML_MARKERS_PER_FRAME = 50;
   private ProgressBar mapLoadingProgressBar;
   private RelativeLayout mapLoadingLayout;
   private ImageView cacheImageView;
@@ -90,26 +100,64 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
   private boolean handlePanDrag = false;
   private boolean moveOnMarkerPress = true;
   private boolean cacheEnabled = false;
+  private String snapshotKey;
+  private String customMapStyleString;
   private boolean initialRegionSet = false;
   private boolean initialCameraSet = false;
   private LatLngBounds cameraLastIdleBounds;
   private int cameraMoveReason = 0;
+  private int tileMetricsInterval = 0;
+  private int regionChangeThrottleMs = 0;
+  private double regionChangeMinDelta = 0;
+  private long lastRegionChangeTime = 0;
+  private LatLngBounds lastRegionChangeBounds;
+  private LatLngBounds pendingRegionChangeBounds;
+  private boolean regionChangeScheduled = false;
+  final RegionChangeEvent.Stats regionChangeStats = new RegionChangeEvent.Stats();
+  private float userLocationDistanceFilter = 0;
+  private int userLocationMinIntervalMs = 0;
+  private float userLocationMaxAccuracy = 0;
+  private Location lastUserLocation;
+  private long lastUserLocationTime = 0;
+  private final EventThrottler panDragThrottler = new EventThrottler();
+  private final EventThrottler markerDragThrottler = new EventThrottler();
+  private final Runnable regionChangeRunnable = new Runnable() {
+    @Override
+    public void run() {
+      regionChangeScheduled = false;
+      flushRegionChange();
+    }
+  };
+  private final Runnable tileMetricsRunnable = new Runnable() {
+    @Override
+    public void run() {
+      WritableMap event = new WritableNativeMap();
+      event.putMap("metrics", AirMapTileMetrics.getInstance().toWritableMap());
+      manager.pushEvent(context, AirMapView.this, "onTileMetrics", event);
+      if (tileMetricsInterval > 0) {
+        postDelayed(this, tileMetricsInterval);
+      }
+    }
+  };
 
   private static final String[] PERMISSIONS = new String[]{
       "android.permission.ACCESS_FINE_LOCATION", "android.permission.ACCESS_COARSE_LOCATION"};
 
-  private final List<AirMapFeature> features = new ArrayList<>();
-  private final Map<Marker, AirMapMarker> markerMap = new HashMap<>();
-  private final Map<Polyline, AirMapPolyline> polylineMap = new HashMap<>();
-  private final Map<Polygon, AirMapPolygon> polygonMap = new HashMap<>();
-  private final Map<GroundOverlay, AirMapOverlay> overlayMap = new HashMap<>();
-  private final Map<TileOverlay, AirMapHeatmap> heatmapMap = new HashMap<>();
-  private final Map<TileOverlay, AirMapGradientPolyline> gradientPolylineMap = new HashMap<>();
+  final FeatureIndex<AirMapFeature> featureIndex = new FeatureIndex<>();
+  final FeatureRegistry features = new FeatureRegistry(featureIndex);
+  private final GeofenceSet geofences = new GeofenceSet();
+  // features added or removed while the map isn't ready or is paused, see flushFeatureChanges
+  private final Set<AirMapFeature> pendingFeatureAdds = new LinkedHashSet<>();
+  private final Set<AirMapFeature> pendingFeatureRemoves = new LinkedHashSet<>();
   private final GestureDetectorCompat gestureDetector;
   private final AirMapManager manager;
   private LifecycleEventListener lifecycleListener;
   private boolean paused = false;
   private boolean destroyed = false;
+  // idle in the AirMapViewPool, its events have no component to go to
+  private boolean pooled = false;
+  // the settings of the new GoogleMap, restored when the view is reused
+  private MapSettings initialSettings;
   private final ThemedReactContext context;
   private final EventDispatcher eventDispatcher;
 
@@ -209,6 +257,9 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
       return;
     }
     this.map = map;
+    if (initialSettings == null) {
+      initialSettings = MapSettings.of(map);
+    }
     this.map.setInfoWindowAdapter(this);
     this.map.setOnMarkerDragListener(this);
     this.map.setOnPoiClickListener(this);
@@ -221,6 +272,13 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
     map.setOnMyLocationChangeListener(new GoogleMap.OnMyLocationChangeListener() {
       @Override
       public void onMyLocationChange(Location location){
+        if (!geofences.isEmpty()) {
+          dispatchGeofenceTransitions(location);
+        }
+        if (!shouldDispatchUserLocation(location)) {
+          return;
+        }
+
         WritableMap event = new WritableNativeMap();
 
         WritableMap coordinate = new WritableNativeMap();
@@ -244,8 +302,14 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
     map.setOnMarkerClickListener(new GoogleMap.OnMarkerClickListener() {
       @Override
       public boolean onMarkerClick(Marker marker) {
-        WritableMap event;
         AirMapMarker airMapMarker = getMarkerMap(marker);
+        if (airMapMarker == null) {
+          // geojson points have no callout to open
+          dispatchGeoJsonPress(marker, marker.getPosition());
+          return true;
+        }
+
+        WritableMap event;
 
         event = makeClickEventData(marker.getPosition());
         event.putString("action", "marker-press");
@@ -272,18 +336,28 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
     map.setOnPolygonClickListener(new GoogleMap.OnPolygonClickListener() {
       @Override
       public void onPolygonClick(Polygon polygon) {
+        AirMapPolygon polygonView = features.get(polygon, AirMapPolygon.class);
+        if (polygonView == null) {
+          dispatchGeoJsonPress(polygon, polygon.getPoints().get(0));
+          return;
+        }
         WritableMap event = makeClickEventData(polygon.getPoints().get(0));
         event.putString("action", "polygon-press");
-        manager.pushEvent(context, polygonMap.get(polygon), "onPress", event);
+        manager.pushEvent(context, polygonView, "onPress", event);
       }
     });
 
     map.setOnPolylineClickListener(new GoogleMap.OnPolylineClickListener() {
       @Override
       public void onPolylineClick(Polyline polyline) {
+        AirMapPolyline polylineView = features.get(polyline, AirMapPolyline.class);
+        if (polylineView == null) {
+          dispatchGeoJsonPress(polyline, polyline.getPoints().get(0));
+          return;
+        }
         WritableMap event = makeClickEventData(polyline.getPoints().get(0));
         event.putString("action", "polyline-press");
-        manager.pushEvent(context, polylineMap.get(polyline), "onPress", event);
+        manager.pushEvent(context, polylineView, "onPress", event);
       }
     });
 
@@ -299,6 +373,7 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
         event = makeClickEventData(marker.getPosition());
         event.putString("action", "callout-press");
         AirMapMarker markerView = getMarkerMap(marker);
+        if (markerView == null) return;
         manager.pushEvent(context, markerView, "onCalloutPress", event);
 
         event = makeClickEventData(marker.getPosition());
@@ -329,9 +404,11 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
     map.setOnGroundOverlayClickListener(new GoogleMap.OnGroundOverlayClickListener() {
       @Override
       public void onGroundOverlayClick(GroundOverlay groundOverlay) {
+        AirMapOverlay overlayView = features.get(groundOverlay, AirMapOverlay.class);
+        if (overlayView == null) return;
         WritableMap event = makeClickEventData(groundOverlay.getPosition());
         event.putString("action", "overlay-press");
-        manager.pushEvent(context, overlayMap.get(groundOverlay), "onPress", event);
+        manager.pushEvent(context, overlayView, "onPress", event);
       }
     });
 
@@ -347,7 +424,7 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
       public void onCameraMove() {
         LatLngBounds bounds = map.getProjection().getVisibleRegion().latLngBounds;
         cameraLastIdleBounds = null;
-        eventDispatcher.dispatchEvent(new RegionChangeEvent(getId(), bounds, true));
+        onContinuousRegionChange(bounds);
       }
     });
 
@@ -355,11 +432,14 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
       @Override
       public void onCameraIdle() {
         LatLngBounds bounds = map.getProjection().getVisibleRegion().latLngBounds;
+        cancelPendingRegionChange();
+        lastRegionChangeBounds = null;
         if ((cameraMoveReason != 0) &&
           ((cameraLastIdleBounds == null) ||
             LatLngBoundsUtils.BoundsAreDifferent(bounds, cameraLastIdleBounds))) {
           cameraLastIdleBounds = bounds;
-          eventDispatcher.dispatchEvent(new RegionChangeEvent(getId(), bounds, false));
+          eventDispatcher.dispatchEvent(
+              new RegionChangeEvent(getId(), bounds, false, regionChangeStats));
         }
       }
     });
@@ -392,6 +472,7 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
           }
           paused = false;
         }
+        flushFeatureChanges();
       }
 
       @Override
@@ -406,6 +487,7 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
           }
           paused = true;
         }
+        deferFeatureChanges();
       }
 
       @Override
@@ -415,6 +497,10 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
     };
 
     context.addLifecycleEventListener(lifecycleListener);
+    if (pendingKmlSrc != null) {
+      setKmlSrc(pendingKmlSrc);
+    }
+    flushFeatureChanges();
   }
 
   private boolean hasPermissions() {
@@ -431,6 +517,13 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
       return;
     }
     destroyed = true;
+    removeCallbacks(tileMetricsRunnable);
+    cancelPendingRegionChange();
+    panDragThrottler.cancel();
+    markerDragThrottler.cancel();
+    cancelKmlLoading();
+    pendingFeatureAdds.clear();
+    pendingFeatureRemoves.clear();
 
     if (lifecycleListener != null && context != null) {
       context.removeLifecycleEventListener(lifecycleListener);
@@ -443,6 +536,106 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
     onDestroy();
   }
 
+  boolean canBeReusedIn(ThemedReactContext reactContext, ReactApplicationContext appContext) {
+    return !destroyed && getContext() == getNonBuggyContext(reactContext, appContext);
+  }
+
+  boolean canBeRecycled() {
+    return !destroyed && map != null;
+  }
+
+  boolean isPooled() {
+    return pooled;
+  }
+
+  void setPooled(boolean pooled) {
+    this.pooled = pooled;
+  }
+
+  /**
+   * Clears everything a component added so the view can go back into the {@link AirMapViewPool}.
+   * The props are reset by the manager. Must not run from onDropViewInstance, the view hierarchy
+   * manager still reads the id and the features of the view after it.
+   *
+   * @return false when the view can't be reused.
+   */
+  boolean recycle() {
+    if (!canBeRecycled()) {
+      return false;
+    }
+
+    while (features.size() > 0) {
+      removeFeatureAt(features.size() - 1);
+    }
+    for (int i = getChildCount() - 1; i >= 0; i--) {
+      if (getChildAt(i) != attacherGroup) {
+        removeViewAt(i);
+      }
+    }
+    cacheImageView = null;
+    mapLoadingLayout = null;
+    mapLoadingProgressBar = null;
+    snapshotKey = null;
+
+    removeCallbacks(tileMetricsRunnable);
+    cancelPendingRegionChange();
+    panDragThrottler.cancel();
+    markerDragThrottler.cancel();
+    cancelKmlLoading();
+    kmlLayer = null;
+    geofences.setFences(Collections.<GeofenceSet.Fence>emptyList());
+    lastUserLocation = null;
+    initialRegionSet = false;
+    initialCameraSet = false;
+    cameraLastIdleBounds = null;
+    lastRegionChangeBounds = null;
+
+    map.clear();
+    pendingFeatureAdds.clear();
+    pendingFeatureRemoves.clear();
+    map.setPadding(0, 0, 0, 0);
+    map.moveCamera(CameraUpdateFactory.newCameraPosition(
+        new CameraPosition(new LatLng(0, 0), 0, 0, 0)));
+    return true;
+  }
+
+  /**
+   * Puts the settings props change back to those of a new GoogleMap, after the manager reset the
+   * props to their own defaults.
+   */
+  void restoreInitialSettings() {
+    if (map != null && initialSettings != null) {
+      initialSettings.restore(map);
+    }
+  }
+
+  /**
+   * @return the current map settings, or null before the map is ready.
+   */
+  public WritableMap getMapSettings() {
+    return map != null ? MapSettings.toWritableMap(map) : null;
+  }
+
+  /**
+   * Called when the pool hands the view to a new component. The component waits for
+   * onMapReady, which has to be sent again once the view has its new id.
+   */
+  void onReuse() {
+    pooled = false;
+    new Handler(Looper.getMainLooper()).post(new Runnable() {
+      @Override
+      public void run() {
+        if (destroyed || map == null) {
+          return;
+        }
+        manager.pushEvent(context, AirMapView.this, "onMapReady", new WritableNativeMap());
+        if (isMapLoaded) {
+          manager.pushEvent(context, AirMapView.this, "onMapLoaded", new WritableNativeMap());
+        }
+      }
+    });
+  }
+
   public void setInitialRegion(ReadableMap initialRegion) {
     if (!initialRegionSet && initialRegion != null) {
       setRegion(initialRegion);
@@ -512,6 +705,7 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
 
   public void setShowsUserLocation(boolean showUserLocation) {
     this.showUserLocation = showUserLocation; // hold onto this for lifecycle handling
+    lastUserLocation = null;
     if (hasPermissions()) {
       //noinspection MissingPermission
       map.setMyLocationEnabled(showUserLocation);
@@ -535,6 +729,12 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
     this.cacheView();
   }
 
+  public void setMapStyle(String customMapStyleString) {
+    this.customMapStyleString = customMapStyleString;
+    map.setMapStyle(
+        customMapStyleString != null ? new MapStyleOptions(customMapStyleString) : null);
+  }
+
   public void enableMapLoading(boolean loadingEnabled) {
     if (loadingEnabled && !this.isMapLoaded) {
       this.getMapLoadingLayoutView().setVisibility(View.VISIBLE);
@@ -590,12 +790,144 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
     this.handlePanDrag = handlePanDrag;
   }
 
+  public void setTileMetricsInterval(int tileMetricsInterval) {
+    this.tileMetricsInterval = tileMetricsInterval;
+    removeCallbacks(tileMetricsRunnable);
+    if (tileMetricsInterval > 0 && !destroyed) {
+      postDelayed(tileMetricsRunnable, tileMetricsInterval);
+    }
+  }
+
+  public void setRegionChangeThrottleMs(int regionChangeThrottleMs) {
+    this.regionChangeThrottleMs = regionChangeThrottleMs;
+  }
+
+  public void setRegionChangeMinDelta(double regionChangeMinDelta) {
+    this.regionChangeMinDelta = regionChangeMinDelta;
+  }
+
+  public void setUserLocationDistanceFilter(float userLocationDistanceFilter) {
+    this.userLocationDistanceFilter = userLocationDistanceFilter;
+  }
+
+  public void setUserLocationMinIntervalMs(int userLocationMinIntervalMs) {
+    this.userLocationMinIntervalMs = userLocationMinIntervalMs;
+  }
+
+  public void setUserLocationMaxAccuracy(float userLocationMaxAccuracy) {
+    this.userLocationMaxAccuracy = userLocationMaxAccuracy;
+  }
+
+  /**
+   * Filters fixes before any event is allocated. A fix is sent when it is accurate enough and,
+   * compared to the last sent one, both the interval and the distance were reached.
+   */
+  private boolean shouldDispatchUserLocation(Location location) {
+    if (userLocationMaxAccuracy > 0 &&
+        (!location.hasAccuracy() || location.getAccuracy() > userLocationMaxAccuracy)) {
+      return false;
+    }
+
+    long now = SystemClock.uptimeMillis();
+    if (lastUserLocation != null) {
+      if (now - lastUserLocationTime < userLocationMinIntervalMs) {
+        return false;
+      }
+      if (location.distanceTo(lastUserLocation) < userLocationDistanceFilter) {
+        return false;
+      }
+    }
+
+    if (lastUserLocation == null) {
+      lastUserLocation = new Location(location);
+    } else {
+      lastUserLocation.set(location);
+    }
+    lastUserLocationTime = now;
+    return true;
+  }
+
+  public void setGeofences(List<GeofenceSet.Fence> fences) {
+    geofences.setFences(fences);
+  }
+
+  private void dispatchGeofenceTransitions(Location location) {
+    LatLng point = new LatLng(location.getLatitude(), location.getLongitude());
+    for (GeofenceSet.Transition transition : geofences.update(point)) {
+      WritableMap coordinate = new WritableNativeMap();
+      coordinate.putDouble("latitude", point.latitude);
+      coordinate.putDouble("longitude", point.longitude);
+
+      WritableMap event = new WritableNativeMap();
+      event.putString("id", transition.id);
+      event.putString("transition", transition.type);
+      event.putMap("coordinate", coordinate);
+      manager.pushEvent(context, this, "onGeofenceTransition", event);
+    }
+  }
+
+  public void setDragEventThrottleMs(int dragEventThrottleMs) {
+    panDragThrottler.setInterval(dragEventThrottleMs);
+    markerDragThrottler.setInterval(dragEventThrottleMs);
+  }
+
+  /**
+   * Continuous region events are sent at most once per regionChangeThrottleMs, with the latest
+   * region of the window sent when it ends, and only once the region moved by more than
+   * regionChangeMinDelta of its span.
+   */
+  private void onContinuousRegionChange(LatLngBounds bounds) {
+    if (pendingRegionChangeBounds != null) {
+      regionChangeStats.dropped.incrementAndGet();
+    }
+    pendingRegionChangeBounds = bounds;
+
+    long wait = lastRegionChangeTime + regionChangeThrottleMs - SystemClock.uptimeMillis();
+    if (wait > 0) {
+      if (!regionChangeScheduled) {
+        regionChangeScheduled = true;
+        postDelayed(regionChangeRunnable, wait);
+      }
+      return;
+    }
+    flushRegionChange();
+  }
+
+  private void flushRegionChange() {
+    LatLngBounds bounds = pendingRegionChangeBounds;
+    pendingRegionChangeBounds = null;
+    if (bounds == null) {
+      return;
+    }
+
+    if (regionChangeMinDelta > 0 && lastRegionChangeBounds != null &&
+        !LatLngBoundsUtils.BoundsAreDifferent(bounds, lastRegionChangeBounds,
+            regionChangeMinDelta)) {
+      regionChangeStats.dropped.incrementAndGet();
+      return;
+    }
+
+    lastRegionChangeBounds = bounds;
+    lastRegionChangeTime = SystemClock.uptimeMillis();
+    eventDispatcher.dispatchEvent(new RegionChangeEvent(getId(), bounds, true, regionChangeStats));
+  }
+
+  private void cancelPendingRegionChange() {
+    if (pendingRegionChangeBounds != null) {
+      // superseded by the final region
+      regionChangeStats.dropped.incrementAndGet();
+      pendingRegionChangeBounds = null;
+    }
+    removeCallbacks(regionChangeRunnable);
+    regionChangeScheduled = false;
+  }
+
   public void addFeature(View child, int index) {
     // Our desired API is to pass up annotations/overlays as children to the mapview component.
     // This is where we intercept them and do the appropriate underlying mapview action.
     if (child instanceof AirMapMarker) {
       AirMapMarker annotation = (AirMapMarker) child;
-      annotation.addToMap(map);
+      addFeatureToMap(annotation);
       features.add(index, annotation);
 
       // Allow visibility event to be triggered later
@@ -616,55 +948,46 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
       // With some testing, seems like it is not always
       //   triggered just by being added to a parent view.
       annotation.setVisibility(visibility);
-
-      Marker marker = (Marker) annotation.getFeature();
-      markerMap.put(marker, annotation);
     } else if (child instanceof AirMapPolyline) {
       AirMapPolyline polylineView = (AirMapPolyline) child;
-      polylineView.addToMap(map);
+      addFeatureToMap(polylineView);
       features.add(index, polylineView);
-      Polyline polyline = (Polyline) polylineView.getFeature();
-      polylineMap.put(polyline, polylineView);
     } else if (child instanceof AirMapGradientPolyline) {
       AirMapGradientPolyline polylineView = (AirMapGradientPolyline) child;
-      polylineView.addToMap(map);
+      addFeatureToMap(polylineView);
       features.add(index, polylineView);
-      TileOverlay tileOverlay = (TileOverlay) polylineView.getFeature();
-      gradientPolylineMap.put(tileOverlay, polylineView);
     } else if (child instanceof AirMapPolygon) {
       AirMapPolygon polygonView = (AirMapPolygon) child;
-      polygonView.addToMap(map);
+      addFeatureToMap(polygonView);
       features.add(index, polygonView);
-      Polygon polygon = (Polygon) polygonView.getFeature();
-      polygonMap.put(polygon, polygonView);
     } else if (child instanceof AirMapCircle) {
       AirMapCircle circleView = (AirMapCircle) child;
-      circleView.addToMap(map);
+      addFeatureToMap(circleView);
       features.add(index, circleView);
     } else if (child instanceof AirMapUrlTile) {
       AirMapUrlTile urlTileView = (AirMapUrlTile) child;
-      urlTileView.addToMap(map);
+      addFeatureToMap(urlTileView);
       features.add(index, urlTileView);
     } else if (child instanceof AirMapWMSTile) {
       AirMapWMSTile urlTileView = (AirMapWMSTile) child;
-      urlTileView.addToMap(map);
+      addFeatureToMap(urlTileView);
       features.add(index, urlTileView);
     } else if (child instanceof AirMapLocalTile) {
       AirMapLocalTile localTileView = (AirMapLocalTile) child;
-      localTileView.addToMap(map);
+      addFeatureToMap(localTileView);
       features.add(index, localTileView);
     } else if (child instanceof AirMapOverlay) {
       AirMapOverlay overlayView = (AirMapOverlay) child;
-      overlayView.addToMap(map);
+      addFeatureToMap(overlayView);
       features.add(index, overlayView);
-      GroundOverlay overlay = (GroundOverlay) overlayView.getFeature();
-      overlayMap.put(overlay, overlayView);
     } else if (child instanceof AirMapHeatmap) {
       AirMapHeatmap heatmapView = (AirMapHeatmap) child;
-      heatmapView.addToMap(map);
+      addFeatureToMap(heatmapView);
       features.add(index, heatmapView);
-      TileOverlay heatmap = (TileOverlay)heatmapView.getFeature();
-      heatmapMap.put(heatmap, heatmapView);
+    } else if (child instanceof AirMapGeoJson) {
+      AirMapGeoJson geoJsonView = (AirMapGeoJson) child;
+      addFeatureToMap(geoJsonView);
+      features.add(index, geoJsonView);
     } else if (child instanceof ViewGroup) {
       ViewGroup children = (ViewGroup) child;
       for (int i = 0; i < children.getChildCount(); i++) {
@@ -679,18 +1002,87 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
     return features.size();
   }
 
+  /**
+   * @return how many features are registered, spatially indexed and waiting to be added to or
+   * removed from the map. Used to check that unmounted features don't leak.
+   */
+  public WritableMap getFeatureStats() {
+    WritableMap stats = new WritableNativeMap();
+    stats.putInt("registered", features.size());
+    stats.putInt("indexed", featureIndex.size());
+    stats.putInt("pendingAdds", pendingFeatureAdds.size());
+    stats.putInt("pendingRemoves", pendingFeatureRemoves.size());
+    return stats;
+  }
+
   public View getFeatureAt(int index) {
     return features.get(index);
   }
 
   public void removeFeatureAt(int index) {
     AirMapFeature feature = features.remove(index);
-    if (feature instanceof AirMapMarker) {
-      markerMap.remove(feature.getFeature());
-    } else if (feature instanceof AirMapHeatmap) {
-      heatmapMap.remove(feature.getFeature());
+    if (pendingFeatureAdds.remove(feature)) {
+      // never reached the map
+      return;
+    }
+    if (areFeatureChangesDeferred()) {
+      pendingFeatureRemoves.add(feature);
+    } else {
+      feature.removeFromMap(map);
+    }
+  }
+
+  private boolean areFeatureChangesDeferred() {
+    return map == null || paused;
+  }
+
+  private void addFeatureToMap(AirMapFeature feature) {
+    if (pendingFeatureRemoves.remove(feature)) {
+      // moved while deferred, it never left the map
+      return;
+    }
+    if (areFeatureChangesDeferred()) {
+      pendingFeatureAdds.add(feature);
+    } else {
+      feature.addToMap(map);
+    }
+  }
+
+  private void deferFeatureChanges() {
+    for (AirMapFeature feature : features.getFeatures()) {
+      feature.setUpdatesDeferred(true);
+    }
+  }
+
+  /**
+   * Applies the feature changes recorded while the map wasn't ready or was paused in one go.
+   * Features added and removed again in the meantime never touch the map, and features on the map
+   * apply only the last value of each changed prop.
+   */
+  private void flushFeatureChanges() {
+    if (areFeatureChangesDeferred()) {
+      return;
+    }
+    for (AirMapFeature feature : pendingFeatureRemoves) {
+      // the props changed while paused don't matter to a feature leaving the map
+      feature.removeFromMap(map);
+      feature.discardDeferredUpdates();
+    }
+    pendingFeatureRemoves.clear();
+    for (AirMapFeature feature : pendingFeatureAdds) {
+      feature.addToMap(map);
+      // registered before it had a native object
+      features.onNativeObjectChange(feature);
+    }
+    pendingFeatureAdds.clear();
+    for (AirMapFeature feature : features.getFeatures()) {
+      feature.setUpdatesDeferred(false);
+    }
+    if (pendingKmlLayer != null) {
+      KmlLayer layer = pendingKmlLayer;
+      pendingKmlLayer = null;
+      addKmlLayer(layer);
     }
-    feature.removeFromMap(map);
   }
 
   public WritableMap makeClickEventData(LatLng point) {
@@ -735,6 +1127,8 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
       map.moveCamera(cameraToSet);
       cameraToSet = null;
     }
+    // the camera is final now, which the cached snapshot lookup waits for
+    cacheView();
   }
 
   public void animateToCamera(ReadableMap camera, int duration) {
@@ -808,13 +1202,8 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
 
     boolean addedPosition = false;
 
-    for (AirMapFeature feature : features) {
-      if (feature instanceof AirMapMarker) {
-        Marker marker = (Marker) feature.getFeature();
-        builder.include(marker.getPosition());
-        addedPosition = true;
-      }
-      // TODO(lmr): may want to include shapes / etc.
+    for (AirMapFeature feature : features.getFeatures()) {
+      addedPosition |= includeFeature(builder, feature);
     }
     if (addedPosition) {
       LatLngBounds bounds = builder.build();
@@ -832,23 +1221,11 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
 
     LatLngBounds.Builder builder = new LatLngBounds.Builder();
 
-    String[] markerIDs = new String[markerIDsArray.size()];
-    for (int i = 0; i < markerIDsArray.size(); i++) {
-      markerIDs[i] = markerIDsArray.getString(i);
-    }
-
     boolean addedPosition = false;
 
-    List<String> markerIDList = Arrays.asList(markerIDs);
-
-    for (AirMapFeature feature : features) {
-      if (feature instanceof AirMapMarker) {
-        String identifier = ((AirMapMarker) feature).getIdentifier();
-        Marker marker = (Marker) feature.getFeature();
-        if (markerIDList.contains(identifier)) {
-          builder.include(marker.getPosition());
-          addedPosition = true;
-        }
+    for (int i = 0; i < markerIDsArray.size(); i++) {
+      for (AirMapFeature feature : features.getByIdentifier(markerIDsArray.getString(i))) {
+        addedPosition |= includeFeature(builder, feature);
       }
     }
 
@@ -869,6 +1246,16 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
     }
   }
 
+  private static boolean includeFeature(LatLngBounds.Builder builder, AirMapFeature feature) {
+    LatLngBounds bounds = feature.getGeometryBounds();
+    if (bounds == null) {
+      return false;
+    }
+    builder.include(bounds.southwest);
+    builder.include(bounds.northeast);
+    return true;
+  }
+
   public void fitToCoordinates(ReadableArray coordinatesArray, ReadableMap edgePadding,
       boolean animated) {
     if (map == null) return;
@@ -933,13 +1320,13 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
   @Override
   public View getInfoWindow(Marker marker) {
     AirMapMarker markerView = getMarkerMap(marker);
-    return markerView.getCallout();
+    return markerView == null ? null : markerView.getCallout();
   }
 
   @Override
   public View getInfoContents(Marker marker) {
     AirMapMarker markerView = getMarkerMap(marker);
-    return markerView.getInfoContents();
+    return markerView == null ? null : markerView.getInfoContents();
   }
 
   @Override
@@ -973,23 +1360,43 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
   }
 
   @Override
-  public void onMarkerDrag(Marker marker) {
-    WritableMap event = makeClickEventData(marker.getPosition());
-    manager.pushEvent(context, this, "onMarkerDrag", event);
-
-    AirMapMarker markerView = getMarkerMap(marker);
-    event = makeClickEventData(marker.getPosition());
-    manager.pushEvent(context, markerView, "onDrag", event);
+  public void onMarkerDrag(final Marker marker) {
+    markerDragThrottler.post(new Runnable() {
+      @Override
+      public void run() {
+        dispatchMarkerDragEvents(marker, "onMarkerDrag", "onDrag", true);
+      }
+    });
   }
 
   @Override
   public void onMarkerDragEnd(Marker marker) {
-    WritableMap event = makeClickEventData(marker.getPosition());
-    manager.pushEvent(context, this, "onMarkerDragEnd", event);
+    // the end event carries the final position, a pending drag event would only precede it
+    markerDragThrottler.cancel();
+    dispatchMarkerDragEvents(marker, "onMarkerDragEnd", "onDragEnd", false);
 
     AirMapMarker markerView = getMarkerMap(marker);
-    event = makeClickEventData(marker.getPosition());
-    manager.pushEvent(context, markerView, "onDragEnd", event);
+    if (markerView != null) {
+      featureIndex.put(markerView);
+    }
+  }
+
+  /**
+   * Drag events go through the event dispatcher, which keeps them in order and merges the
+   * continuous ones per frame.
+   */
+  private void dispatchMarkerDragEvents(Marker marker, String mapEventName,
+      String markerEventName, boolean continuous) {
+    LatLng position = marker.getPosition();
+    Point point = map.getProjection().toScreenLocation(position);
+    eventDispatcher.dispatchEvent(
+        new MapDragEvent(getId(), mapEventName, position, point, continuous));
+
+    AirMapMarker markerView = getMarkerMap(marker);
+    if (markerView != null) {
+      eventDispatcher.dispatchEvent(
+          new MapDragEvent(markerView.getId(), markerEventName, position, point, continuous));
+    }
   }
 
   @Override
@@ -1065,22 +1472,45 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
     }
   }
 
+  /**
+   * Shows a snapshot in place of the map. A snapshot cached on disk for the same camera, size,
+   * map type, style and features is shown right away, the map is only snapshotted on a miss.
+   */
   private void cacheView() {
     if (this.cacheEnabled) {
+      final String key = getSnapshotKey();
+      if (key != null && key.equals(snapshotKey)) {
+        // already shown, or being looked up
+        return;
+      }
+      snapshotKey = key;
+
       final ImageView cacheImageView = this.getCacheImageView();
       final RelativeLayout mapLoadingLayout = this.getMapLoadingLayoutView();
       cacheImageView.setVisibility(View.INVISIBLE);
       mapLoadingLayout.setVisibility(View.VISIBLE);
-      if (this.isMapLoaded) {
-        this.map.snapshot(new GoogleMap.SnapshotReadyCallback() {
-          @Override public void onSnapshotReady(Bitmap bitmap) {
-            cacheImageView.setImageBitmap(bitmap);
-            cacheImageView.setVisibility(View.VISIBLE);
-            mapLoadingLayout.setVisibility(View.INVISIBLE);
-          }
-        });
+      if (key == null) {
+        // wait for the layout and the camera
+        return;
       }
+
+      SnapshotCache.getInstance(getContext()).get(key, new SnapshotCache.Callback() {
+        @Override public void onSnapshot(Bitmap bitmap) {
+          if (!key.equals(snapshotKey) || cacheImageView != AirMapView.this.cacheImageView) {
+            return;
+          }
+          if (bitmap != null) {
+            showSnapshot(bitmap);
+          } else if (isMapLoaded) {
+            snapshotAndCache(key);
+          } else {
+            // looked up again once the map has loaded
+            snapshotKey = null;
+          }
+        }
+      });
     } else {
+      this.snapshotKey = null;
       this.removeCacheImageView();
       if (this.isMapLoaded) {
         this.removeMapLoadingLayoutView();
@@ -1088,11 +1518,66 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
     }
   }
 
+  private void snapshotAndCache(final String key) {
+    this.map.snapshot(new GoogleMap.SnapshotReadyCallback() {
+      @Override public void onSnapshotReady(Bitmap bitmap) {
+        if (bitmap == null || !key.equals(snapshotKey) || cacheImageView == null) {
+          return;
+        }
+        showSnapshot(bitmap);
+        SnapshotCache.getInstance(getContext()).put(key, bitmap);
+      }
+    });
+  }
+
+  private void showSnapshot(Bitmap bitmap) {
+    cacheImageView.setImageBitmap(bitmap);
+    cacheImageView.setVisibility(View.VISIBLE);
+    if (mapLoadingLayout != null) {
+      mapLoadingLayout.setVisibility(View.INVISIBLE);
+    }
+  }
+
+  /**
+   * @return the snapshot cache key, or null while the size or the camera isn't known yet.
+   */
+  private String getSnapshotKey() {
+    if (map == null || getWidth() <= 0 || getHeight() <= 0 ||
+        boundsToMove != null || cameraToSet != null) {
+      return null;
+    }
+
+    CameraPosition camera = map.getCameraPosition();
+    // features only contribute their geometry and identity, not their styling
+    int featureHash = 1;
+    for (AirMapFeature feature : features.getFeatures()) {
+      LatLngBounds bounds = feature.getGeometryBounds();
+      String identifier = feature.getIdentifier();
+      featureHash = 31 * featureHash + feature.getClass().getName().hashCode();
+      featureHash = 31 * featureHash + (identifier != null ? identifier.hashCode() : 0);
+      featureHash = 31 * featureHash + (bounds != null ? bounds.hashCode() : 0);
+    }
+    String key = String.format(Locale.US, "%.6f,%.6f,%.2f,%.1f,%.1f|%dx%d|%d|%d|%d",
+        camera.target.latitude, camera.target.longitude, camera.zoom, camera.bearing, camera.tilt,
+        getWidth(), getHeight(), map.getMapType(),
+        customMapStyleString != null ? customMapStyleString.hashCode() : 0, featureHash);
+    try {
+      return FileUtil.sha1Hex(key.getBytes("UTF-8"));
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
   public void onPanDrag(MotionEvent ev) {
-    Point point = new Point((int) ev.getX(), (int) ev.getY());
-    LatLng coords = this.map.getProjection().fromScreenLocation(point);
-    WritableMap event = makeClickEventData(coords);
-    manager.pushEvent(context, this, "onPanDrag", event);
+    final Point point = new Point((int) ev.getX(), (int) ev.getY());
+    panDragThrottler.post(new Runnable() {
+      @Override
+      public void run() {
+        // the touch point already is the screen position, no need to project it back
+        LatLng coords = map.getProjection().fromScreenLocation(point);
+        eventDispatcher.dispatchEvent(new MapDragEvent(getId(), "onPanDrag", coords, point, true));
+      }
+    });
   }
 
   public void onDoublePress(MotionEvent ev) {
@@ -1103,99 +1588,170 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
   }
 
   public void setKmlSrc(String kmlSrc) {
-    try {
-      InputStream kmlStream =  new FileUtil(context).execute(kmlSrc).get();
+    cancelKmlLoading();
+    if (map == null) {
+      pendingKmlSrc = kmlSrc;
+      return;
+    }
 
-      if (kmlStream == null) {
-        return;
+    kmlLoader = new KmlLoader(context, map, new KmlLoader.Listener() {
+      @Override
+      public void onKmlLoaded(KmlLayer kmlLayer) {
+        kmlLoader = null;
+        addKmlLayer(kmlLayer);
       }
+    });
+    kmlLoader.load(kmlSrc);
+  }
+
+  private void cancelKmlLoading() {
+    pendingKmlSrc = null;
+    pendingKmlLayer = null;
+    if (kmlLoader != null) {
+      kmlLoader.cancel(true);
+      kmlLoader = null;
+    }
+    if (kmlMarkerBatch != null) {
+      removeCallbacks(kmlMarkerBatch);
+      kmlMarkerBatch = null;
+    }
+  }
 
-      kmlLayer = new KmlLayer(map, kmlStream, context);
+  private void addKmlLayer(KmlLayer kmlLayer) {
+    if (destroyed) {
+      return;
+    }
+    if (areFeatureChangesDeferred()) {
+      // like the other features, the layer is only drawn while the map is running
+      pendingKmlLayer = kmlLayer;
+      return;
+    }
+    this.kmlLayer = kmlLayer;
+
+    try {
       kmlLayer.addLayerToMap();
+    } catch (XmlPullParserException e) {
+      e.printStackTrace();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
 
-      WritableMap pointers = new WritableNativeMap();
-      WritableArray markers = new WritableNativeArray();
+    WritableMap pointers = new WritableNativeMap();
+
+    if (kmlLayer.getContainers() == null) {
+      manager.pushEvent(context, this, "onKmlReady", pointers);
+      return;
+    }
 
-      if (kmlLayer.getContainers() == null) {
-        manager.pushEvent(context, this, "onKmlReady", pointers);
+    //Retrieve a nested container within the first container
+    KmlContainer container = kmlLayer.getContainers().iterator().next();
+    if (container == null || container.getContainers() == null) {
+      manager.pushEvent(context, this, "onKmlReady", pointers);
+      return;
+    }
+
+
+    if (container.getContainers().iterator().hasNext()) {
+      container = container.getContainers().iterator().next();
+    }
+
+    List<KmlPlacemark> placemarks = new ArrayList<>();
+    for (KmlPlacemark placemark : container.getPlacemarks()) {
+      placemarks.add(placemark);
+    }
+
+    // Creating a marker view per placemark is the expensive part, so spread it over frames.
+    kmlMarkerBatch = new KmlMarkerBatch(container, placemarks);
+    postOnAnimation(kmlMarkerBatch);
+  }
+
+  private class KmlMarkerBatch implements Runnable {
+    private final KmlContainer container;
+    private final List<KmlPlacemark> placemarks;
+    private final WritableArray markers = new WritableNativeArray();
+    private int index = 0;
+
+    KmlMarkerBatch(KmlContainer container, List<KmlPlacemark> placemarks) {
+      this.container = container;
+      this.placemarks = placemarks;
+    }
+
+    @Override
+    public void run() {
+      if (destroyed || kmlMarkerBatch != this) {
         return;
       }
 
-      //Retrieve a nested container within the first container
-      KmlContainer container = kmlLayer.getContainers().iterator().next();
-      if (container == null || container.getContainers() == null) {
-        manager.pushEvent(context, this, "onKmlReady", pointers);
-        return;
+      int end = Math.min(index + KML_MARKERS_PER_FRAME, placemarks.size());
+      for (; index < end; index++) {
+        markers.pushMap(addKmlMarker(container, placemarks.get(index), index));
       }
 
+      WritableMap progress = new WritableNativeMap();
+      progress.putInt("loaded", index);
+      progress.putInt("total", placemarks.size());
+      manager.pushEvent(context, AirMapView.this, "onKmlProgress", progress);
 
-      if (container.getContainers().iterator().hasNext()) {
-        container = container.getContainers().iterator().next();
+      if (index < placemarks.size()) {
+        postOnAnimation(this);
+        return;
       }
 
-      Integer index = 0;
-      for (KmlPlacemark placemark : container.getPlacemarks()) {
-        MarkerOptions options = new MarkerOptions();
-
-        if (placemark.getInlineStyle() != null) {
-          options = placemark.getMarkerOptions();
-        } else {
-          options.icon(BitmapDescriptorFactory.defaultMarker());
-        }
+      kmlMarkerBatch = null;
 
-        LatLng latLng = ((LatLng) placemark.getGeometry().getGeometryObject());
-        String title = "";
-        String snippet = "";
+      WritableMap pointers = new WritableNativeMap();
+      pointers.putArray("markers", markers);
+      manager.pushEvent(context, AirMapView.this, "onKmlReady", pointers);
+    }
+  }
 
-        if (placemark.hasProperty("name")) {
-          title = placemark.getProperty("name");
-        }
+  private WritableMap addKmlMarker(KmlContainer container, KmlPlacemark placemark, int index) {
+    MarkerOptions options = new MarkerOptions();
 
-        if (placemark.hasProperty("description")) {
-          snippet = placemark.getProperty("description");
-        }
+    if (placemark.getInlineStyle() != null) {
+      options = placemark.getMarkerOptions();
+    } else {
+      options.icon(BitmapDescriptorFactory.defaultMarker());
+    }
 
-        options.position(latLng);
-        options.title(title);
-        options.snippet(snippet);
+    LatLng latLng = ((LatLng) placemark.getGeometry().getGeometryObject());
+    String title = "";
+    String snippet = "";
 
-        AirMapMarker marker = new AirMapMarker(context, options, this.manager.getMarkerManager());
+    if (placemark.hasProperty("name")) {
+      title = placemark.getProperty("name");
+    }
 
-        if (placemark.getInlineStyle() != null
-            && placemark.getInlineStyle().getIconUrl() != null) {
-          marker.setImage(placemark.getInlineStyle().getIconUrl());
-        } else if (container.getStyle(placemark.getStyleId()) != null) {
-          KmlStyle style = container.getStyle(placemark.getStyleId());
-          marker.setImage(style.getIconUrl());
-        }
+    if (placemark.hasProperty("description")) {
+      snippet = placemark.getProperty("description");
+    }
 
-        String identifier = title + " - " + index;
+    options.position(latLng);
+    options.title(title);
+    options.snippet(snippet);
 
-        marker.setIdentifier(identifier);
+    AirMapMarker marker = new AirMapMarker(context, options, this.manager.getMarkerManager());
 
-        addFeature(marker, index++);
+    if (placemark.getInlineStyle() != null
+        && placemark.getInlineStyle().getIconUrl() != null) {
+      marker.setImage(placemark.getInlineStyle().getIconUrl());
+    } else if (container.getStyle(placemark.getStyleId()) != null) {
+      KmlStyle style = container.getStyle(placemark.getStyleId());
+      marker.setImage(style.getIconUrl());
+    }
 
-        WritableMap loadedMarker = makeClickEventData(latLng);
-        loadedMarker.putString("id", identifier);
-        loadedMarker.putString("title", title);
-        loadedMarker.putString("description", snippet);
+    String identifier = title + " - " + index;
 
-        markers.pushMap(loadedMarker);
-      }
+    marker.setIdentifier(identifier);
 
-      pointers.putArray("markers", markers);
+    addFeature(marker, index);
 
-      manager.pushEvent(context, this, "onKmlReady", pointers);
+    WritableMap loadedMarker = makeClickEventData(latLng);
+    loadedMarker.putString("id", identifier);
+    loadedMarker.putString("title", title);
+    loadedMarker.putString("description", snippet);
 
-    } catch (XmlPullParserException e) {
-      e.printStackTrace();
-    } catch (IOException e) {
-      e.printStackTrace();
-    } catch (InterruptedException e) {
-      e.printStackTrace();
-    } catch (ExecutionException e) {
-      e.printStackTrace();
-    }
+    return loadedMarker;
   }
 
   @Override
@@ -1271,21 +1827,25 @@ public class AirMapView extends MapView implements GoogleMap.InfoWindowAdapter,
     }
   }
 
-  private AirMapMarker getMarkerMap(Marker marker) {
-    AirMapMarker airMarker = markerMap.get(marker);
-
-    if (airMarker != null) {
-      return airMarker;
-    }
-
-    for (Map.Entry<Marker, AirMapMarker> entryMarker : markerMap.entrySet()) {
-      if (entryMarker.getKey().getPosition().equals(marker.getPosition())
-          && entryMarker.getKey().getTitle().equals(marker.getTitle())) {
-        airMarker = entryMarker.getValue();
-        break;
+  /**
+   * Sends onPress to the geojson layer owning the given map object, if any.
+   */
+  private boolean dispatchGeoJsonPress(Object nativeObject, LatLng point) {
+    for (AirMapGeoJson layer : features.getGeoJsonLayers()) {
+      GeoJsonParser.Feature feature = layer.getFeatureFor(nativeObject);
+      if (feature != null) {
+        WritableMap event = makeClickEventData(point);
+        event.putString("action", "geojson-press");
+        event.putString("id", feature.id);
+        event.putMap("properties", layer.getProperties(feature));
+        manager.pushEvent(context, layer, "onPress", event);
+        return true;
       }
     }
+    return false;
+  }
 
-    return airMarker;
+  private AirMapMarker getMarkerMap(Marker marker) {
+    return features.get(marker, AirMapMarker.class);
   }
 }
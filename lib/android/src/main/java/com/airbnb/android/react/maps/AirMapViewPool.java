@@ -0,0 +1,185 @@
+package com.airbnb.android.react.maps;
+
+import android.app.Activity;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+
+import com.facebook.react.bridge.LifecycleEventListener;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.uimanager.ThemedReactContext;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Opt-in pool of ready AirMapViews, so that a new map screen doesn't pay for creating the
+ * MapView and waiting for its GoogleMap.
+ *
+ * Views are created one at a time while the main thread is idle, and dropped views go back into
+ * the pool with their features removed and their props reset. The pool is empty until a size is
+ * set through AirMapModule.setMapViewPoolSize.
+ *
+ * Only used from the main thread.
+ */
+public class AirMapViewPool {
+
+  private static final Map<ReactApplicationContext, AirMapViewPool> pools = new WeakHashMap<>();
+
+  private final ReactApplicationContext appContext;
+  private final List<AirMapView> idle = new ArrayList<>();
+  // recycled views that still have the features and props of their last component
+  private final Set<AirMapView> resetPending = new HashSet<>();
+  private final Handler handler = new Handler(Looper.getMainLooper());
+  private AirMapManager manager;
+  private int size = 0;
+  private boolean prewarmScheduled = false;
+
+  private final MessageQueue.IdleHandler prewarmHandler = new MessageQueue.IdleHandler() {
+    @Override
+    public boolean queueIdle() {
+      prewarmScheduled = prewarmOne();
+      return prewarmScheduled;
+    }
+  };
+
+  private AirMapViewPool(ReactApplicationContext appContext) {
+    this.appContext = appContext;
+    appContext.addLifecycleEventListener(new LifecycleEventListener() {
+      @Override
+      public void onHostResume() {
+        schedulePrewarm();
+      }
+
+      @Override
+      public void onHostPause() {
+      }
+
+      @Override
+      public void onHostDestroy() {
+        clear();
+      }
+    });
+  }
+
+  static synchronized AirMapViewPool get(ReactApplicationContext appContext) {
+    AirMapViewPool pool = pools.get(appContext);
+    if (pool == null) {
+      pool = new AirMapViewPool(appContext);
+      pools.put(appContext, pool);
+    }
+    return pool;
+  }
+
+  void setManager(AirMapManager manager) {
+    this.manager = manager;
+  }
+
+  /**
+   * Sets how many idle views are kept, 0 disables the pool and destroys the idle views.
+   */
+  public void setSize(int size) {
+    this.size = Math.max(0, size);
+    while (idle.size() > this.size) {
+      AirMapView view = idle.remove(idle.size() - 1);
+      resetPending.remove(view);
+      view.doDestroy();
+    }
+    schedulePrewarm();
+  }
+
+  /**
+   * @return a ready view for the given context, or null when the pool has none.
+   */
+  AirMapView acquire(ThemedReactContext context) {
+    AirMapView view = null;
+    while (view == null && !idle.isEmpty()) {
+      AirMapView candidate = idle.remove(idle.size() - 1);
+      if (!reset(candidate)) {
+        continue;
+      }
+      if (candidate.canBeReusedIn(context, appContext)) {
+        view = candidate;
+      } else {
+        candidate.doDestroy();
+      }
+    }
+    if (view != null) {
+      view.onReuse();
+    }
+    schedulePrewarm();
+    return view;
+  }
+
+  /**
+   * Takes back a dropped view. It is only cleared after the view hierarchy manager is done
+   * dropping it and its features, which still needs their ids.
+   *
+   * @return false when the pool is full or the view can't be reused, the caller must destroy it.
+   */
+  boolean recycle(final AirMapView view) {
+    if (idle.size() >= size || manager == null || !view.canBeRecycled()) {
+      return false;
+    }
+    view.setPooled(true);
+    idle.add(view);
+    resetPending.add(view);
+    handler.post(new Runnable() {
+      @Override
+      public void run() {
+        if (resetPending.contains(view) && !reset(view)) {
+          idle.remove(view);
+        }
+      }
+    });
+    return true;
+  }
+
+  /**
+   * Clears a recycled view if that didn't happen yet, destroying it when that fails.
+   *
+   * @return whether the view can be reused.
+   */
+  private boolean reset(AirMapView view) {
+    if (!resetPending.remove(view)) {
+      return true;
+    }
+    if (!view.recycle() || !manager.resetProps(view)) {
+      view.doDestroy();
+      return false;
+    }
+    return true;
+  }
+
+  public void clear() {
+    for (AirMapView view : idle) {
+      view.doDestroy();
+    }
+    idle.clear();
+    resetPending.clear();
+  }
+
+  private void schedulePrewarm() {
+    if (!prewarmScheduled && manager != null && idle.size() < size) {
+      prewarmScheduled = true;
+      Looper.myQueue().addIdleHandler(prewarmHandler);
+    }
+  }
+
+  /**
+   * @return whether more views should be created.
+   */
+  private boolean prewarmOne() {
+    Activity activity = appContext.getCurrentActivity();
+    if (manager == null || activity == null || idle.size() >= size) {
+      return false;
+    }
+    ThemedReactContext context = new ThemedReactContext(appContext, activity);
+    idle.add(new AirMapView(context, appContext, manager, manager.googleMapOptions));
+    return idle.size() < size;
+  }
+}
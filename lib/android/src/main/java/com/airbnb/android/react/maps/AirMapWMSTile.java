@@ -5,21 +5,25 @@ import android.content.Context;
 import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.model.TileOverlay;
 import com.google.android.gms.maps.model.TileOverlayOptions;
-import com.google.android.gms.maps.model.UrlTileProvider;
 
 import java.net.MalformedURLException;
 import java.net.URL;
 
 public class AirMapWMSTile extends AirMapFeature {
+
+  private static final int DIRTY_TILES = 1;
+  private static final int DIRTY_Z_INDEX = 1 << 1;
+  private static final int DIRTY_OPACITY = 1 << 2;
+
   private static final double[] mapBound = {-20037508.34789244, 20037508.34789244};
   private static final double FULL = 20037508.34789244 * 2;
 
-    class AIRMapGSUrlTileProvider extends UrlTileProvider {
+    class AIRMapGSUrlTileProvider extends MeasuredUrlTileProvider {
     private String urlTemplate;
     private int width;
     private int height;
     public AIRMapGSUrlTileProvider(int width, int height, String urlTemplate) {
-      super(width, height);
+      super(AirMapTileMetrics.WMS_TILE, width, height);
       this.urlTemplate = urlTemplate;
       this.width = width;
       this.height = height;
@@ -85,40 +89,40 @@ public class AirMapWMSTile extends AirMapFeature {
     if (tileProvider != null) {
       tileProvider.setUrlTemplate(urlTemplate);
     }
-    if (tileOverlay != null) {
+    if (canUpdate(DIRTY_TILES)) {
       tileOverlay.clearTileCache();
     }
   }
 
   public void setZIndex(float zIndex) {
     this.zIndex = zIndex;
-    if (tileOverlay != null) {
+    if (canUpdate(DIRTY_Z_INDEX)) {
       tileOverlay.setZIndex(zIndex);
     }
   }
 
   public void setMaximumZ(float maximumZ) {
     this.maximumZ = maximumZ;
-    if (tileOverlay != null) {
+    if (canUpdate(DIRTY_TILES)) {
       tileOverlay.clearTileCache();
     }
   }
 
   public void setMinimumZ(float minimumZ) {
     this.minimumZ = minimumZ;
-    if (tileOverlay != null) {
+    if (canUpdate(DIRTY_TILES)) {
       tileOverlay.clearTileCache();
     }
   }
   public void setTileSize(int tileSize) {
     this.tileSize = tileSize;
-    if (tileOverlay != null) {
+    if (canUpdate(DIRTY_TILES)) {
       tileOverlay.clearTileCache();
     }
   }
   public void setOpacity(float opacity) {
     this.opacity = opacity;
-    if (tileOverlay != null) {
+    if (canUpdate(DIRTY_OPACITY)) {
         tileOverlay.setTransparency(1-opacity);
     }
   }
@@ -144,6 +148,13 @@ public class AirMapWMSTile extends AirMapFeature {
     return tileOverlay;
   }
 
+  @Override
+  protected void applyDeferredUpdates(int fields) {
+    if ((fields & DIRTY_TILES) != 0) tileOverlay.clearTileCache();
+    if ((fields & DIRTY_Z_INDEX) != 0) tileOverlay.setZIndex(zIndex);
+    if ((fields & DIRTY_OPACITY) != 0) tileOverlay.setTransparency(1 - opacity);
+  }
+
   @Override
   public void addToMap(GoogleMap map) {
     this.tileOverlay = map.addTileOverlay(getTileOverlayOptions());
@@ -0,0 +1,315 @@
+package com.airbnb.android.react.maps;
+
+import android.content.Context;
+
+import com.facebook.common.logging.FLog;
+import com.facebook.react.common.ReactConstants;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Properties;
+
+import javax.annotation.Nullable;
+
+/**
+ * Url keyed disk cache for downloaded documents such as KML and GeoJSON sources.
+ *
+ * Cached entries are revalidated with If-None-Match / If-Modified-Since, so an unchanged source
+ * costs a 304 instead of a full download. New downloads are handed to the consumer as they arrive
+ * and written to the cache on the way, the entry is only kept when the stream was read to its end.
+ * If the server can't be reached a stale entry is served instead.
+ */
+public class DownloadCache {
+
+  private static final String DIRECTORY = "airmap-downloads";
+  private static final String BODY_SUFFIX = ".body";
+  private static final String META_SUFFIX = ".meta";
+  private static final String ETAG = "etag";
+  private static final String LAST_MODIFIED = "lastModified";
+  private static final long MAX_SIZE_BYTES = 64 * 1024 * 1024;
+  private static final int TIMEOUT_MS = 15000;
+  private static final int MAX_DRAIN_BYTES = 64 * 1024;
+
+  private static volatile DownloadCache instance;
+
+  private final File directory;
+
+  private DownloadCache(Context context) {
+    directory = new File(context.getCacheDir(), DIRECTORY);
+  }
+
+  static DownloadCache getInstance(Context context) {
+    if (instance == null) {
+      synchronized (DownloadCache.class) {
+        if (instance == null) {
+          instance = new DownloadCache(context.getApplicationContext());
+        }
+      }
+    }
+
+    return instance;
+  }
+
+  /**
+   * Must not be called on the main thread.
+   */
+  public InputStream open(String url) throws IOException {
+    String key = FileUtil.sha1Hex(url.getBytes("UTF-8"));
+    File body = new File(directory, key + BODY_SUFFIX);
+    File meta = new File(directory, key + META_SUFFIX);
+    Properties headers = body.exists() ? readMeta(meta) : null;
+
+    HttpURLConnection connection = null;
+    try {
+      connection = (HttpURLConnection) new URL(url).openConnection();
+      connection.setConnectTimeout(TIMEOUT_MS);
+      connection.setReadTimeout(TIMEOUT_MS);
+      if (headers != null) {
+        if (headers.getProperty(ETAG) != null) {
+          connection.setRequestProperty("If-None-Match", headers.getProperty(ETAG));
+        }
+        if (headers.getProperty(LAST_MODIFIED) != null) {
+          connection.setRequestProperty("If-Modified-Since", headers.getProperty(LAST_MODIFIED));
+        }
+      }
+
+      int status = connection.getResponseCode();
+      if (status == HttpURLConnection.HTTP_NOT_MODIFIED && headers != null) {
+        connection.disconnect();
+        return openCached(body, meta, headers);
+      }
+      if (status >= 200 && status < 300) {
+        return new CachingInputStream(connection, body, meta);
+      }
+      throw new IOException("Unexpected status " + status + " for " + url);
+    } catch (IOException e) {
+      if (connection != null) {
+        connection.disconnect();
+      }
+      if (headers == null) {
+        throw e;
+      }
+      FLog.w(ReactConstants.TAG, "Could not revalidate " + url + ", using the cached copy", e);
+      return openCached(body, meta, headers);
+    }
+  }
+
+  private InputStream openCached(File body, File meta, Properties headers) throws IOException {
+    long now = System.currentTimeMillis();
+    body.setLastModified(now);
+    meta.setLastModified(now);
+    return new CachedInputStream(body, headers);
+  }
+
+  /**
+   * @return the version of a response with the given validators, null without any.
+   */
+  @Nullable
+  private static String getVersion(Properties headers) {
+    if (headers.getProperty(ETAG) != null) {
+      return "etag:" + headers.getProperty(ETAG);
+    }
+    if (headers.getProperty(LAST_MODIFIED) != null) {
+      return "modified:" + headers.getProperty(LAST_MODIFIED);
+    }
+    return null;
+  }
+
+  private static Properties readMeta(File meta) {
+    Properties properties = new Properties();
+    InputStream in = null;
+    try {
+      in = new FileInputStream(meta);
+      properties.load(in);
+      return properties;
+    } catch (IOException e) {
+      return null;
+    } finally {
+      AirMapModule.closeQuietly(in);
+    }
+  }
+
+  // The body goes in first, a new body with stale validators only costs a full download.
+  private synchronized void commit(File temp, File body, File meta, Properties headers) {
+    if (!temp.renameTo(body)) {
+      temp.delete();
+      return;
+    }
+
+    OutputStream out = null;
+    try {
+      out = new FileOutputStream(meta);
+      headers.store(out, null);
+    } catch (IOException e) {
+      FLog.w(ReactConstants.TAG, "Could not write download cache entry", e);
+      body.delete();
+      meta.delete();
+      return;
+    } finally {
+      AirMapModule.closeQuietly(out);
+    }
+    FileUtil.trimDirectory(directory, MAX_SIZE_BYTES);
+  }
+
+  private static class CachedInputStream extends BufferedInputStream
+      implements FileUtil.Versioned {
+    private final Properties headers;
+
+    CachedInputStream(File body, Properties headers) throws IOException {
+      super(new FileInputStream(body));
+      this.headers = headers;
+    }
+
+    @Override
+    public String getVersion() {
+      return DownloadCache.getVersion(headers);
+    }
+  }
+
+  /**
+   * Copies everything read from the connection into a temporary file, which becomes the cache
+   * entry once the consumer has read the whole response.
+   */
+  private class CachingInputStream extends FilterInputStream implements FileUtil.Versioned {
+    private final HttpURLConnection connection;
+    private final File body;
+    private final File meta;
+    private final Properties headers = new Properties();
+    private File temp;
+    private OutputStream out;
+    private boolean complete = false;
+
+    CachingInputStream(HttpURLConnection connection, File body, File meta) throws IOException {
+      super(new BufferedInputStream(connection.getInputStream()));
+      this.connection = connection;
+      this.body = body;
+      this.meta = meta;
+
+      String etag = connection.getHeaderField("ETag");
+      String lastModified = connection.getHeaderField("Last-Modified");
+      if (etag != null) {
+        headers.setProperty(ETAG, etag);
+      }
+      if (lastModified != null) {
+        headers.setProperty(LAST_MODIFIED, lastModified);
+      }
+
+      try {
+        if (directory.exists() || directory.mkdirs()) {
+          temp = File.createTempFile(body.getName(), ".tmp", directory);
+          out = new BufferedOutputStream(new FileOutputStream(temp));
+        }
+      } catch (IOException e) {
+        FLog.w(ReactConstants.TAG, "Could not create download cache entry", e);
+        dropCacheFile();
+      }
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b == -1) {
+        complete = true;
+      } else {
+        write(new byte[]{(byte) b}, 0, 1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int count) throws IOException {
+      int read = super.read(buffer, offset, count);
+      if (read == -1) {
+        complete = true;
+      } else {
+        write(buffer, offset, read);
+      }
+      return read;
+    }
+
+    @Override
+    public String getVersion() {
+      return DownloadCache.getVersion(headers);
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    @Override
+    public long skip(long count) throws IOException {
+      // skipped bytes never reach the cache file, so the entry can't be kept
+      dropCacheFile();
+      return super.skip(count);
+    }
+
+    private void write(byte[] buffer, int offset, int count) {
+      if (out == null) {
+        return;
+      }
+      try {
+        out.write(buffer, offset, count);
+      } catch (IOException e) {
+        // a full disk must not break the download itself
+        dropCacheFile();
+      }
+    }
+
+    private void dropCacheFile() {
+      AirMapModule.closeQuietly(out);
+      out = null;
+      if (temp != null) {
+        temp.delete();
+        temp = null;
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      // parsers often stop at the closing tag or brace, read what little trails it
+      if (out != null && !complete) {
+        drain();
+      }
+      try {
+        super.close();
+      } finally {
+        connection.disconnect();
+        if (out != null) {
+          try {
+            out.close();
+          } catch (IOException e) {
+            complete = false;
+          }
+          out = null;
+          if (complete) {
+            commit(temp, body, meta, headers);
+          } else {
+            temp.delete();
+          }
+          temp = null;
+        }
+      }
+    }
+
+    private void drain() {
+      byte[] buffer = new byte[4096];
+      try {
+        for (int i = 0; i < MAX_DRAIN_BYTES / buffer.length && !complete; i++) {
+          read(buffer, 0, buffer.length);
+        }
+      } catch (IOException e) {
+        complete = false;
+      }
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package com.airbnb.android.react.maps;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+/**
+ * Runs the latest of a stream of event producing actions at most once per interval. Actions
+ * posted while waiting replace each other, and the last one runs when the interval ends, so the
+ * final state of a gesture is never lost.
+ *
+ * Only the action that runs pays for projecting coordinates and building the event.
+ */
+public class EventThrottler {
+  private final Handler handler = new Handler(Looper.getMainLooper());
+  private int intervalMs = 0;
+  private long lastRunTime = 0;
+  private Runnable pendingAction;
+  private boolean scheduled = false;
+
+  private final Runnable flushRunnable = new Runnable() {
+    @Override
+    public void run() {
+      scheduled = false;
+      flush();
+    }
+  };
+
+  public void setInterval(int intervalMs) {
+    this.intervalMs = intervalMs;
+  }
+
+  public void post(Runnable action) {
+    pendingAction = action;
+
+    long wait = lastRunTime + intervalMs - SystemClock.uptimeMillis();
+    if (wait > 0) {
+      if (!scheduled) {
+        scheduled = true;
+        handler.postDelayed(flushRunnable, wait);
+      }
+      return;
+    }
+    flush();
+  }
+
+  public void cancel() {
+    pendingAction = null;
+    handler.removeCallbacks(flushRunnable);
+    scheduled = false;
+  }
+
+  private void flush() {
+    Runnable action = pendingAction;
+    pendingAction = null;
+    if (action != null) {
+      lastRunTime = SystemClock.uptimeMillis();
+      action.run();
+    }
+  }
+}
@@ -0,0 +1,171 @@
+package com.airbnb.android.react.maps;
+
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Uniform grid over latitude / longitude that maps cells to the entries whose bounds overlap
+ * them, used for map features and geofences. Features covering too many cells, like country
+ * outlines, are kept in a separate list that every query checks.
+ *
+ * Only used from the main thread.
+ */
+public class FeatureIndex<T extends FeatureIndex.Indexable> {
+
+  public interface Indexable {
+    /**
+     * @return bounds of the geometry, or null when the entry shouldn't be indexed.
+     */
+    LatLngBounds getGeometryBounds();
+
+    /**
+     * Whether the geometry itself, not only its bounds, intersects the given bounds.
+     */
+    boolean intersects(LatLngBounds bounds);
+  }
+
+  private static final double CELL_SIZE = 0.25; // degrees
+  private static final int COLUMNS = (int) (360 / CELL_SIZE);
+  private static final int ROWS = (int) (180 / CELL_SIZE);
+  private static final int MAX_CELLS_PER_FEATURE = 64;
+  // past this many cells checking every feature is cheaper than walking the grid
+  private static final int MAX_CELLS_PER_QUERY = 4096;
+
+  private final Map<Long, Set<T>> cells = new HashMap<>();
+  private final Map<T, long[]> featureCells = new HashMap<>();
+  private final Set<T> largeFeatures = new HashSet<>();
+
+  public int size() {
+    return featureCells.size() + largeFeatures.size();
+  }
+
+  /**
+   * Adds the feature, or moves it when it is already indexed.
+   */
+  public void put(T feature) {
+    remove(feature);
+
+    LatLngBounds bounds = feature.getGeometryBounds();
+    if (bounds == null) {
+      return;
+    }
+
+    long[] keys = cellKeys(bounds, MAX_CELLS_PER_FEATURE);
+    if (keys == null) {
+      largeFeatures.add(feature);
+      return;
+    }
+
+    for (long key : keys) {
+      Set<T> cell = cells.get(key);
+      if (cell == null) {
+        cell = new HashSet<>();
+        cells.put(key, cell);
+      }
+      cell.add(feature);
+    }
+    featureCells.put(feature, keys);
+  }
+
+  public void remove(T feature) {
+    if (largeFeatures.remove(feature)) {
+      return;
+    }
+
+    long[] keys = featureCells.remove(feature);
+    if (keys == null) {
+      return;
+    }
+    for (long key : keys) {
+      Set<T> cell = cells.get(key);
+      if (cell != null) {
+        cell.remove(feature);
+        if (cell.isEmpty()) {
+          cells.remove(key);
+        }
+      }
+    }
+  }
+
+  public void clear() {
+    cells.clear();
+    featureCells.clear();
+    largeFeatures.clear();
+  }
+
+  /**
+   * @return the features whose geometry intersects the bounds.
+   */
+  public List<T> query(LatLngBounds bounds) {
+    Set<T> candidates = new LinkedHashSet<>(largeFeatures);
+
+    long[] keys = cellKeys(bounds, MAX_CELLS_PER_QUERY);
+    if (keys == null) {
+      candidates.addAll(featureCells.keySet());
+    } else {
+      for (long key : keys) {
+        Set<T> cell = cells.get(key);
+        if (cell != null) {
+          candidates.addAll(cell);
+        }
+      }
+    }
+
+    List<T> result = new ArrayList<>();
+    for (T feature : candidates) {
+      if (feature.intersects(bounds)) {
+        result.add(feature);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return keys of the cells overlapping the bounds, or null when there are more than maxCells.
+   */
+  private static long[] cellKeys(LatLngBounds bounds, int maxCells) {
+    int south = row(bounds.southwest.latitude);
+    int north = row(bounds.northeast.latitude);
+    double[] ranges = LatLngBoundsUtils.LongitudeRanges(bounds);
+
+    int count = 0;
+    for (int i = 0; i < ranges.length; i += 2) {
+      count += (column(ranges[i + 1]) - column(ranges[i]) + 1) * (north - south + 1);
+    }
+    if (count > maxCells) {
+      return null;
+    }
+
+    long[] keys = new long[count];
+    int index = 0;
+    for (int i = 0; i < ranges.length; i += 2) {
+      int west = column(ranges[i]);
+      int east = column(ranges[i + 1]);
+      for (int row = south; row <= north; row++) {
+        for (int column = west; column <= east; column++) {
+          keys[index++] = (long) row * COLUMNS + column;
+        }
+      }
+    }
+    return keys;
+  }
+
+  private static int row(double latitude) {
+    return clamp((int) Math.floor((latitude + 90) / CELL_SIZE), ROWS);
+  }
+
+  private static int column(double longitude) {
+    return clamp((int) Math.floor((longitude + 180) / CELL_SIZE), COLUMNS);
+  }
+
+  private static int clamp(int value, int size) {
+    return Math.max(0, Math.min(size - 1, value));
+  }
+}
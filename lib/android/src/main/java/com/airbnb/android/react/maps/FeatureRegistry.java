@@ -0,0 +1,150 @@
+package com.airbnb.android.react.maps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every feature of a map, in child order, together with hash lookups from the native map object
+ * (Marker, Polygon, ...) and from the identifier to the feature, and the spatial index.
+ *
+ * The lookups follow the features through {@link AirMapFeature.OnFeatureChangeListener}, so they
+ * stay correct when an identifier or native object changes after the feature was added.
+ *
+ * Only used from the main thread.
+ */
+public class FeatureRegistry implements AirMapFeature.OnFeatureChangeListener {
+
+  private final List<AirMapFeature> features = new ArrayList<>();
+  private final List<AirMapGeoJson> geoJsonLayers = new ArrayList<>();
+  private final Map<Object, AirMapFeature> byNativeObject = new HashMap<>();
+  private final Map<AirMapFeature, Object> nativeObjects = new HashMap<>();
+  private final Map<String, List<AirMapFeature>> byIdentifier = new HashMap<>();
+  private final Map<AirMapFeature, String> identifiers = new HashMap<>();
+  private final FeatureIndex<AirMapFeature> index;
+
+  public FeatureRegistry(FeatureIndex<AirMapFeature> index) {
+    this.index = index;
+  }
+
+  /**
+   * Registers a feature that has just been added to the map.
+   */
+  public void add(int position, AirMapFeature feature) {
+    features.add(position, feature);
+    if (feature instanceof AirMapGeoJson) {
+      // a layer owns many native objects, clicks are resolved by the layers themselves
+      geoJsonLayers.add((AirMapGeoJson) feature);
+    } else {
+      putNativeObject(feature);
+    }
+    putIdentifier(feature);
+    index.put(feature);
+    feature.setOnFeatureChangeListener(this);
+  }
+
+  public AirMapFeature remove(int position) {
+    AirMapFeature feature = features.remove(position);
+    feature.setOnFeatureChangeListener(null);
+    if (feature instanceof AirMapGeoJson) {
+      geoJsonLayers.remove(feature);
+    }
+    removeNativeObject(feature);
+    removeIdentifier(feature);
+    index.remove(feature);
+    return feature;
+  }
+
+  public AirMapFeature get(int position) {
+    return features.get(position);
+  }
+
+  public int size() {
+    return features.size();
+  }
+
+  public List<AirMapFeature> getFeatures() {
+    return Collections.unmodifiableList(features);
+  }
+
+  public List<AirMapGeoJson> getGeoJsonLayers() {
+    return Collections.unmodifiableList(geoJsonLayers);
+  }
+
+  /**
+   * @return the feature owning the native map object, or null when there is none of that type.
+   */
+  public <T extends AirMapFeature> T get(Object nativeObject, Class<T> type) {
+    AirMapFeature feature = byNativeObject.get(nativeObject);
+    return type.isInstance(feature) ? type.cast(feature) : null;
+  }
+
+  /**
+   * @return the features with the given identifier, usually at most one.
+   */
+  public List<AirMapFeature> getByIdentifier(String identifier) {
+    List<AirMapFeature> matches = identifier == null ? null : byIdentifier.get(identifier);
+    return matches == null
+        ? Collections.<AirMapFeature>emptyList()
+        : Collections.unmodifiableList(matches);
+  }
+
+  @Override
+  public void onGeometryChange(AirMapFeature feature) {
+    index.put(feature);
+  }
+
+  @Override
+  public void onIdentifierChange(AirMapFeature feature) {
+    removeIdentifier(feature);
+    putIdentifier(feature);
+  }
+
+  @Override
+  public void onNativeObjectChange(AirMapFeature feature) {
+    removeNativeObject(feature);
+    putNativeObject(feature);
+  }
+
+  private void putNativeObject(AirMapFeature feature) {
+    Object nativeObject = feature.getFeature();
+    if (nativeObject != null) {
+      byNativeObject.put(nativeObject, feature);
+      nativeObjects.put(feature, nativeObject);
+    }
+  }
+
+  // The feature may already have dropped its native object, so remove by what was registered.
+  private void removeNativeObject(AirMapFeature feature) {
+    Object nativeObject = nativeObjects.remove(feature);
+    if (nativeObject != null && byNativeObject.get(nativeObject) == feature) {
+      byNativeObject.remove(nativeObject);
+    }
+  }
+
+  private void putIdentifier(AirMapFeature feature) {
+    String identifier = feature.getIdentifier();
+    if (identifier != null) {
+      List<AirMapFeature> matches = byIdentifier.get(identifier);
+      if (matches == null) {
+        matches = new ArrayList<>(1);
+        byIdentifier.put(identifier, matches);
+      }
+      matches.add(feature);
+      identifiers.put(feature, identifier);
+    }
+  }
+
+  private void removeIdentifier(AirMapFeature feature) {
+    String identifier = identifiers.remove(feature);
+    List<AirMapFeature> matches = identifier == null ? null : byIdentifier.get(identifier);
+    if (matches != null) {
+      matches.remove(feature);
+      if (matches.isEmpty()) {
+        byIdentifier.remove(identifier);
+      }
+    }
+  }
+}
@@ -1,76 +1,136 @@
 package com.airbnb.android.react.maps;
 
 import android.content.Context;
+import android.content.pm.PackageManager;
 import android.net.Uri;
-import android.os.AsyncTask;
-
-import com.facebook.common.logging.FLog;
-import com.facebook.react.common.ReactConstants;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URL;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.annotation.Nullable;
 
-public class FileUtil extends AsyncTask<String, Void, InputStream> {
+/**
+ * Helpers to open map sources and maintain the on-disk caches built from them.
+ */
+public final class FileUtil {
 
-  private final String NAME = "FileUtil";
-  private final String TEMP_FILE_SUFFIX = "temp";
+  /**
+   * Implemented by streams that know which version of their source they read.
+   */
+  public interface Versioned {
+    @Nullable String getVersion();
+  }
 
-  private Exception exception;
-  private Context context;
+  private FileUtil() {
+  }
 
-  public FileUtil(Context context) {
-    super();
+  /**
+   * Open the given uri, or plain file path, for reading. Http(s) sources go through the
+   * DownloadCache and are streamed to the consumer while they download.
+   *
+   * Must not be called on the main thread.
+   */
+  public static InputStream openInputStream(Context context, String src) throws IOException {
+    Uri fileContentUri = Uri.parse(src);
+    String scheme = fileContentUri.getScheme();
 
-    this.context = context;
+    if (scheme == null) {
+      return new BufferedInputStream(new FileInputStream(src));
+    }
+    if (scheme.startsWith("http")) {
+      return DownloadCache.getInstance(context).open(src);
+    }
+    return context.getContentResolver().openInputStream(fileContentUri);
   }
 
-  protected InputStream doInBackground(String... urls) {
-    try {
-      Uri fileContentUri = Uri.parse(urls[0]);
+  /**
+   * @return a string that changes whenever the content of the source opened as the given stream
+   * changes, or null when that can't be told without reading all of it. Used to key caches of
+   * parsed sources, so they can be checked before the source is read.
+   */
+  @Nullable
+  public static String getVersion(Context context, String src, InputStream stream) {
+    if (stream instanceof Versioned) {
+      return ((Versioned) stream).getVersion();
+    }
 
-      if (fileContentUri.getScheme().startsWith("http")) {
-        return getDownloadFileInputStream(context, fileContentUri);
+    Uri uri = Uri.parse(src);
+    String scheme = uri.getScheme();
+    if (scheme == null || scheme.equals("file")) {
+      File file = new File(scheme == null ? src : uri.getPath());
+      return file.isFile() ? "file:" + file.length() + "@" + file.lastModified() : null;
+    }
+    if (scheme.equals("android.resource")) {
+      // resources only change with the app
+      try {
+        return "app:" + context.getPackageManager()
+            .getPackageInfo(context.getPackageName(), 0).lastUpdateTime;
+      } catch (PackageManager.NameNotFoundException e) {
+        return null;
       }
-      return context.getContentResolver().openInputStream(fileContentUri);
-    } catch (Exception e) {
-      this.exception = e;
-      FLog.e(
-          ReactConstants.TAG,
-          "Could not retrieve file for contentUri " + urls[0],
-          e);
-      return null;
     }
+    return null;
   }
 
-  private InputStream getDownloadFileInputStream(Context context, Uri uri)
-      throws IOException {
-    final File outputDir = context.getApplicationContext().getCacheDir();
-    final File file = File.createTempFile(NAME, TEMP_FILE_SUFFIX, outputDir);
-    file.deleteOnExit();
-
-    final URL url = new URL(uri.toString());
-    final InputStream is = url.openStream();
+  /**
+   * @return the hex encoded SHA-1 of the given bytes, used to name cache entries.
+   */
+  public static String sha1Hex(byte[] bytes) throws IOException {
+    byte[] digest;
     try {
-      final ReadableByteChannel channel = Channels.newChannel(is);
-      try {
-        final FileOutputStream stream = new FileOutputStream(file);
-        try {
-          stream.getChannel().transferFrom(channel, 0, Long.MAX_VALUE);
-          return new FileInputStream(file);
-        } finally {
-          stream.close();
-        }
-      } finally {
-        channel.close();
+      digest = MessageDigest.getInstance("SHA-1").digest(bytes);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+
+    StringBuilder builder = new StringBuilder(digest.length * 2);
+    for (byte b : digest) {
+      builder.append(String.format("%02x", b));
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Deletes the least recently modified files of the directory until it fits in maxBytes.
+   */
+  public static void trimDirectory(File directory, long maxBytes) {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+
+    long size = 0;
+    for (File file : files) {
+      size += file.length();
+    }
+    if (size <= maxBytes) {
+      return;
+    }
+
+    List<File> sorted = new ArrayList<>(Arrays.asList(files));
+    Collections.sort(sorted, new Comparator<File>() {
+      @Override
+      public int compare(File a, File b) {
+        long diff = a.lastModified() - b.lastModified();
+        return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+      }
+    });
+    for (File file : sorted) {
+      if (size <= maxBytes) {
+        break;
       }
-    } finally {
-      is.close();
+      size -= file.length();
+      file.delete();
     }
   }
 
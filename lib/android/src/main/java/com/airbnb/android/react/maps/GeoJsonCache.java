@@ -0,0 +1,329 @@
+package com.airbnb.android.react.maps;
+
+import android.content.Context;
+
+import com.facebook.common.logging.FLog;
+import com.facebook.react.common.ReactConstants;
+import com.google.android.gms.maps.model.LatLng;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * Disk cache of parsed GeoJSON documents.
+ *
+ * Entries are keyed by the source (url, path or the inline document itself) and are only used
+ * while the version of the source still matches (validators of a download, size and modification
+ * time of a file, see FileUtil.getVersion), so a hit never reads the source and an edited document
+ * is parsed again. The parsed features are stored as a string table followed by packed
+ * coordinates, and read back through a memory-mapped buffer, which is much faster than parsing
+ * the json.
+ */
+public class GeoJsonCache {
+
+  private static final String DIRECTORY = "airmap-geojson";
+  private static final int MAGIC = 0x41474a32; // "AGJ2"
+  private static final long MAX_SIZE_BYTES = 32 * 1024 * 1024;
+
+  private static final byte TYPE_NULL = 0;
+  private static final byte TYPE_BOOLEAN = 1;
+  private static final byte TYPE_NUMBER = 2;
+  private static final byte TYPE_STRING = 3;
+  private static final byte TYPE_LIST = 4;
+  private static final byte TYPE_MAP = 5;
+
+  private static volatile GeoJsonCache instance;
+
+  private final File directory;
+
+  private GeoJsonCache(Context context) {
+    directory = new File(context.getCacheDir(), DIRECTORY);
+  }
+
+  static GeoJsonCache getInstance(Context context) {
+    if (instance == null) {
+      synchronized (GeoJsonCache.class) {
+        if (instance == null) {
+          instance = new GeoJsonCache(context.getApplicationContext());
+        }
+      }
+    }
+
+    return instance;
+  }
+
+  /**
+   * Returns the features of the given source, from the cache when the version of the source is
+   * unchanged, otherwise by parsing the source as it is read and storing the result. Sources
+   * without a version are parsed every time.
+   *
+   * Must not be called on the main thread.
+   */
+  public List<GeoJsonParser.Feature> load(String key, @Nullable String version, Reader source)
+      throws IOException {
+    if (version == null) {
+      return GeoJsonParser.parse(source);
+    }
+    File file = new File(directory, FileUtil.sha1Hex(key.getBytes("UTF-8")));
+
+    if (file.exists()) {
+      try {
+        List<GeoJsonParser.Feature> features = read(file, version);
+        if (features != null) {
+          file.setLastModified(System.currentTimeMillis());
+          return features;
+        }
+      } catch (Exception e) {
+        FLog.w(ReactConstants.TAG, "Discarding unreadable geojson cache entry", e);
+      }
+    }
+
+    List<GeoJsonParser.Feature> features = GeoJsonParser.parse(source);
+    try {
+      write(file, version, features);
+    } catch (IOException e) {
+      FLog.w(ReactConstants.TAG, "Could not write geojson cache entry", e);
+    }
+    return features;
+  }
+
+  // Writing
+
+  private synchronized void write(File file, String version,
+      List<GeoJsonParser.Feature> features) throws IOException {
+    if (!directory.exists() && !directory.mkdirs()) {
+      throw new IOException("Could not create " + directory);
+    }
+
+    Map<String, Integer> strings = new LinkedHashMap<>();
+    for (GeoJsonParser.Feature feature : features) {
+      collectString(strings, feature.id);
+      collectStrings(strings, feature.properties);
+    }
+
+    File temp = new File(directory, file.getName() + ".tmp");
+    DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+    try {
+      out.writeInt(MAGIC);
+      byte[] versionBytes = version.getBytes("UTF-8");
+      out.writeInt(versionBytes.length);
+      out.write(versionBytes);
+
+      out.writeInt(strings.size());
+      for (String string : strings.keySet()) {
+        byte[] bytes = string.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      }
+
+      out.writeInt(features.size());
+      for (GeoJsonParser.Feature feature : features) {
+        out.writeInt(feature.id == null ? -1 : strings.get(feature.id));
+        writeValue(out, strings, feature.properties);
+
+        writeLine(out, feature.points);
+        out.writeInt(feature.lines.size());
+        for (List<LatLng> line : feature.lines) {
+          writeLine(out, line);
+        }
+        out.writeInt(feature.polygons.size());
+        for (List<List<LatLng>> polygon : feature.polygons) {
+          out.writeInt(polygon.size());
+          for (List<LatLng> ring : polygon) {
+            writeLine(out, ring);
+          }
+        }
+      }
+    } finally {
+      AirMapModule.closeQuietly(out);
+    }
+
+    if (!temp.renameTo(file)) {
+      temp.delete();
+      throw new IOException("Could not move " + temp + " to " + file);
+    }
+    FileUtil.trimDirectory(directory, MAX_SIZE_BYTES);
+  }
+
+  private static void collectString(Map<String, Integer> strings, String string) {
+    if (string != null && !strings.containsKey(string)) {
+      strings.put(string, strings.size());
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void collectStrings(Map<String, Integer> strings, Object value) {
+    if (value instanceof String) {
+      collectString(strings, (String) value);
+    } else if (value instanceof List) {
+      for (Object item : (List<Object>) value) {
+        collectStrings(strings, item);
+      }
+    } else if (value instanceof Map) {
+      for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+        collectString(strings, entry.getKey());
+        collectStrings(strings, entry.getValue());
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void writeValue(DataOutputStream out, Map<String, Integer> strings, Object value)
+      throws IOException {
+    if (value instanceof Boolean) {
+      out.writeByte(TYPE_BOOLEAN);
+      out.writeBoolean((Boolean) value);
+    } else if (value instanceof Double) {
+      out.writeByte(TYPE_NUMBER);
+      out.writeDouble((Double) value);
+    } else if (value instanceof String) {
+      out.writeByte(TYPE_STRING);
+      out.writeInt(strings.get(value));
+    } else if (value instanceof List) {
+      List<Object> list = (List<Object>) value;
+      out.writeByte(TYPE_LIST);
+      out.writeInt(list.size());
+      for (Object item : list) {
+        writeValue(out, strings, item);
+      }
+    } else if (value instanceof Map) {
+      Map<String, Object> map = (Map<String, Object>) value;
+      out.writeByte(TYPE_MAP);
+      out.writeInt(map.size());
+      for (Map.Entry<String, Object> entry : map.entrySet()) {
+        out.writeInt(strings.get(entry.getKey()));
+        writeValue(out, strings, entry.getValue());
+      }
+    } else {
+      out.writeByte(TYPE_NULL);
+    }
+  }
+
+  private static void writeLine(DataOutputStream out, List<LatLng> line) throws IOException {
+    out.writeInt(line.size());
+    for (LatLng point : line) {
+      out.writeDouble(point.latitude);
+      out.writeDouble(point.longitude);
+    }
+  }
+
+  // Reading
+
+  private static List<GeoJsonParser.Feature> read(File file, String version)
+      throws IOException {
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = randomAccessFile.getChannel();
+      ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+      if (buffer.getInt() != MAGIC) {
+        return null;
+      }
+      byte[] versionBytes = version.getBytes("UTF-8");
+      byte[] storedVersion = new byte[buffer.getInt()];
+      if (storedVersion.length != versionBytes.length) {
+        return null;
+      }
+      buffer.get(storedVersion);
+      if (!Arrays.equals(storedVersion, versionBytes)) {
+        return null;
+      }
+
+      String[] strings = new String[buffer.getInt()];
+      for (int i = 0; i < strings.length; i++) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        strings[i] = new String(bytes, "UTF-8");
+      }
+
+      int featureCount = buffer.getInt();
+      List<GeoJsonParser.Feature> features = new ArrayList<>(featureCount);
+      for (int i = 0; i < featureCount; i++) {
+        GeoJsonParser.Feature feature = new GeoJsonParser.Feature();
+        int id = buffer.getInt();
+        feature.id = id < 0 ? null : strings[id];
+        feature.properties = readMap(buffer, strings);
+
+        feature.points.addAll(readLine(buffer));
+        int lineCount = buffer.getInt();
+        for (int j = 0; j < lineCount; j++) {
+          feature.lines.add(readLine(buffer));
+        }
+        int polygonCount = buffer.getInt();
+        for (int j = 0; j < polygonCount; j++) {
+          int ringCount = buffer.getInt();
+          List<List<LatLng>> polygon = new ArrayList<>(ringCount);
+          for (int k = 0; k < ringCount; k++) {
+            polygon.add(readLine(buffer));
+          }
+          feature.polygons.add(polygon);
+        }
+        features.add(feature);
+      }
+      return features;
+    } finally {
+      AirMapModule.closeQuietly(randomAccessFile);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> readMap(ByteBuffer buffer, String[] strings) {
+    Object value = readValue(buffer, strings);
+    return value instanceof Map ? (Map<String, Object>) value : new HashMap<String, Object>();
+  }
+
+  private static Object readValue(ByteBuffer buffer, String[] strings) {
+    switch (buffer.get()) {
+      case TYPE_BOOLEAN:
+        return buffer.get() != 0;
+      case TYPE_NUMBER:
+        return buffer.getDouble();
+      case TYPE_STRING:
+        return strings[buffer.getInt()];
+      case TYPE_LIST:
+        int size = buffer.getInt();
+        List<Object> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+          list.add(readValue(buffer, strings));
+        }
+        return list;
+      case TYPE_MAP:
+        int count = buffer.getInt();
+        Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+          String key = strings[buffer.getInt()];
+          map.put(key, readValue(buffer, strings));
+        }
+        return map;
+      default:
+        return null;
+    }
+  }
+
+  private static List<LatLng> readLine(ByteBuffer buffer) {
+    int size = buffer.getInt();
+    List<LatLng> line = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      double latitude = buffer.getDouble();
+      double longitude = buffer.getDouble();
+      line.add(new LatLng(latitude, longitude));
+    }
+    return line;
+  }
+}
@@ -0,0 +1,286 @@
+package com.airbnb.android.react.maps;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming GeoJSON parser built on android.util.JsonReader.
+ *
+ * Features are read one at a time, so a FeatureCollection never has to be held in memory as a
+ * JSON tree, only as the resulting coordinates.
+ */
+public class GeoJsonParser {
+
+  public static class Feature {
+    public String id;
+    public Map<String, Object> properties;
+    public final List<LatLng> points = new ArrayList<>();
+    public final List<List<LatLng>> lines = new ArrayList<>();
+    // every polygon is its outer ring followed by its holes
+    public final List<List<List<LatLng>>> polygons = new ArrayList<>();
+  }
+
+  private static class Geometry {
+    String type;
+    Object coordinates;
+    List<Geometry> geometries;
+  }
+
+  public static List<Feature> parse(Reader in) throws IOException {
+    List<Feature> features = new ArrayList<>();
+    JsonReader reader = new JsonReader(in);
+    try {
+      readRoot(reader, features);
+    } finally {
+      reader.close();
+    }
+    return features;
+  }
+
+  private static void readRoot(JsonReader reader, List<Feature> features) throws IOException {
+    Geometry root = new Geometry();
+    Geometry geometry = null;
+    Map<String, Object> properties = null;
+    String id = null;
+
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      if (reader.peek() == JsonToken.NULL) {
+        reader.skipValue();
+      } else if (name.equals("type")) {
+        root.type = reader.nextString();
+      } else if (name.equals("features")) {
+        reader.beginArray();
+        while (reader.hasNext()) {
+          features.add(readFeature(reader));
+        }
+        reader.endArray();
+      } else if (name.equals("geometry")) {
+        geometry = readGeometry(reader);
+      } else if (name.equals("properties")) {
+        properties = readObject(reader);
+      } else if (name.equals("id")) {
+        id = reader.nextString();
+      } else if (name.equals("coordinates")) {
+        root.coordinates = readCoordinates(reader);
+      } else if (name.equals("geometries")) {
+        root.geometries = readGeometries(reader);
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.endObject();
+
+    if ("Feature".equals(root.type)) {
+      features.add(toFeature(id, geometry, properties));
+    } else if (!"FeatureCollection".equals(root.type)) {
+      features.add(toFeature(null, root, null));
+    }
+  }
+
+  private static Feature readFeature(JsonReader reader) throws IOException {
+    Geometry geometry = null;
+    Map<String, Object> properties = null;
+    String id = null;
+
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      if (reader.peek() == JsonToken.NULL) {
+        reader.skipValue();
+      } else if (name.equals("geometry")) {
+        geometry = readGeometry(reader);
+      } else if (name.equals("properties")) {
+        properties = readObject(reader);
+      } else if (name.equals("id")) {
+        // ids may be strings or numbers, nextString() accepts both
+        id = reader.nextString();
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.endObject();
+
+    return toFeature(id, geometry, properties);
+  }
+
+  private static Geometry readGeometry(JsonReader reader) throws IOException {
+    Geometry geometry = new Geometry();
+
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      if (reader.peek() == JsonToken.NULL) {
+        reader.skipValue();
+      } else if (name.equals("type")) {
+        geometry.type = reader.nextString();
+      } else if (name.equals("coordinates")) {
+        geometry.coordinates = readCoordinates(reader);
+      } else if (name.equals("geometries")) {
+        geometry.geometries = readGeometries(reader);
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.endObject();
+
+    return geometry;
+  }
+
+  private static List<Geometry> readGeometries(JsonReader reader) throws IOException {
+    List<Geometry> geometries = new ArrayList<>();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      geometries.add(readGeometry(reader));
+    }
+    reader.endArray();
+    return geometries;
+  }
+
+  /**
+   * Reads a position as a LatLng, or any deeper nesting as a List of those.
+   */
+  private static Object readCoordinates(JsonReader reader) throws IOException {
+    reader.beginArray();
+    if (reader.peek() == JsonToken.NUMBER) {
+      double lng = reader.nextDouble();
+      double lat = reader.nextDouble();
+      while (reader.hasNext()) {
+        // altitude and other extra members are ignored
+        reader.skipValue();
+      }
+      reader.endArray();
+      return new LatLng(lat, lng);
+    }
+
+    List<Object> list = new ArrayList<>();
+    while (reader.hasNext()) {
+      list.add(readCoordinates(reader));
+    }
+    reader.endArray();
+    return list;
+  }
+
+  private static Map<String, Object> readObject(JsonReader reader) throws IOException {
+    Map<String, Object> map = new HashMap<>();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      map.put(name, readValue(reader));
+    }
+    reader.endObject();
+    return map;
+  }
+
+  private static Object readValue(JsonReader reader) throws IOException {
+    switch (reader.peek()) {
+      case BEGIN_OBJECT:
+        return readObject(reader);
+      case BEGIN_ARRAY:
+        List<Object> list = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+          list.add(readValue(reader));
+        }
+        reader.endArray();
+        return list;
+      case BOOLEAN:
+        return reader.nextBoolean();
+      case NUMBER:
+        return reader.nextDouble();
+      case NULL:
+        reader.nextNull();
+        return null;
+      default:
+        return reader.nextString();
+    }
+  }
+
+  private static Feature toFeature(String id, Geometry geometry, Map<String, Object> properties) {
+    Feature feature = new Feature();
+    feature.id = id;
+    feature.properties = properties == null ? new HashMap<String, Object>() : properties;
+    if (geometry != null) {
+      addGeometry(feature, geometry);
+    }
+    return feature;
+  }
+
+  private static void addGeometry(Feature feature, Geometry geometry) {
+    if (geometry.type == null) {
+      return;
+    }
+
+    if (geometry.coordinates != null) {
+      try {
+        addCoordinates(feature, geometry.type, geometry.coordinates);
+      } catch (ClassCastException e) {
+        // malformed coordinates for the declared type, skip the geometry
+      }
+    }
+
+    if ("GeometryCollection".equals(geometry.type) && geometry.geometries != null) {
+      for (Geometry child : geometry.geometries) {
+        addGeometry(feature, child);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void addCoordinates(Feature feature, String type, Object coordinates) {
+    switch (type) {
+      case "Point":
+        feature.points.add((LatLng) coordinates);
+        break;
+      case "MultiPoint":
+        for (Object point : (List<Object>) coordinates) {
+          feature.points.add((LatLng) point);
+        }
+        break;
+      case "LineString":
+        feature.lines.add(toLine(coordinates));
+        break;
+      case "MultiLineString":
+        for (Object line : (List<Object>) coordinates) {
+          feature.lines.add(toLine(line));
+        }
+        break;
+      case "Polygon":
+        feature.polygons.add(toPolygon(coordinates));
+        break;
+      case "MultiPolygon":
+        for (Object polygon : (List<Object>) coordinates) {
+          feature.polygons.add(toPolygon(polygon));
+        }
+        break;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<LatLng> toLine(Object coordinates) {
+    List<LatLng> line = new ArrayList<>();
+    for (Object point : (List<Object>) coordinates) {
+      line.add((LatLng) point);
+    }
+    return line;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<List<LatLng>> toPolygon(Object coordinates) {
+    List<List<LatLng>> rings = new ArrayList<>();
+    for (Object ring : (List<Object>) coordinates) {
+      rings.add(toLine(ring));
+    }
+    return rings;
+  }
+}
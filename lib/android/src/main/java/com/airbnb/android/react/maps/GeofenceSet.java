@@ -0,0 +1,166 @@
+package com.airbnb.android.react.maps;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.maps.android.PolyUtil;
+import com.google.maps.android.SphericalUtil;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Polygon and circle fences tested against the user location. Only the fences whose bounds
+ * contain the location, found through a {@link FeatureIndex}, get the exact test, and only
+ * changes in which fences contain the location are reported.
+ *
+ * Only used from the main thread.
+ */
+public class GeofenceSet {
+
+  public static final String ENTER = "enter";
+  public static final String EXIT = "exit";
+
+  public abstract static class Fence implements FeatureIndex.Indexable {
+    final String id;
+
+    Fence(String id) {
+      this.id = id;
+    }
+
+    public String getId() {
+      return id;
+    }
+
+    public abstract boolean contains(LatLng point);
+  }
+
+  public static class PolygonFence extends Fence {
+    private final List<LatLng> coordinates;
+    private final LatLngBounds bounds;
+
+    public PolygonFence(String id, List<LatLng> coordinates) {
+      super(id);
+      this.coordinates = coordinates;
+      this.bounds = LatLngBoundsUtils.BoundsOf(coordinates);
+    }
+
+    @Override
+    public LatLngBounds getGeometryBounds() {
+      return bounds;
+    }
+
+    @Override
+    public boolean intersects(LatLngBounds other) {
+      return bounds != null && LatLngBoundsUtils.BoundsIntersect(bounds, other) &&
+          (LatLngBoundsUtils.PathIntersects(coordinates, true, other) ||
+              contains(other.getCenter()));
+    }
+
+    @Override
+    public boolean contains(LatLng point) {
+      return PolyUtil.containsLocation(point, coordinates, false);
+    }
+  }
+
+  public static class CircleFence extends Fence {
+    private final LatLng center;
+    private final double radius;
+    private final LatLngBounds bounds;
+
+    public CircleFence(String id, LatLng center, double radius) {
+      super(id);
+      this.center = center;
+      this.radius = radius;
+      this.bounds = new LatLngBounds.Builder()
+          .include(SphericalUtil.computeOffset(center, radius, 0))
+          .include(SphericalUtil.computeOffset(center, radius, 90))
+          .include(SphericalUtil.computeOffset(center, radius, 180))
+          .include(SphericalUtil.computeOffset(center, radius, 270))
+          .build();
+    }
+
+    @Override
+    public LatLngBounds getGeometryBounds() {
+      return bounds;
+    }
+
+    // tests the point of the other bounds closest to the center, ignoring the antimeridian
+    @Override
+    public boolean intersects(LatLngBounds other) {
+      if (!LatLngBoundsUtils.BoundsIntersect(bounds, other)) {
+        return false;
+      }
+      double latitude = Math.max(other.southwest.latitude,
+          Math.min(other.northeast.latitude, center.latitude));
+      double longitude = Math.max(other.southwest.longitude,
+          Math.min(other.northeast.longitude, center.longitude));
+      return contains(new LatLng(latitude, longitude));
+    }
+
+    @Override
+    public boolean contains(LatLng point) {
+      return SphericalUtil.computeDistanceBetween(center, point) <= radius;
+    }
+  }
+
+  public static class Transition {
+    public final String id;
+    public final String type;
+
+    Transition(String id, String type) {
+      this.id = id;
+      this.type = type;
+    }
+  }
+
+  private final FeatureIndex<Fence> index = new FeatureIndex<>();
+  private Set<String> inside = new HashSet<>();
+  private boolean empty = true;
+
+  /**
+   * Replaces the fences. The location is kept inside fences that keep their id, so updating the
+   * fences doesn't repeat enter transitions, and removed fences don't report an exit.
+   */
+  public void setFences(List<Fence> fences) {
+    Set<String> ids = new HashSet<>();
+    index.clear();
+    for (Fence fence : fences) {
+      index.put(fence);
+      ids.add(fence.id);
+    }
+    inside.retainAll(ids);
+    empty = fences.isEmpty();
+  }
+
+  public boolean isEmpty() {
+    return empty;
+  }
+
+  /**
+   * @return the fences entered and exited since the previous location.
+   */
+  public List<Transition> update(LatLng location) {
+    Set<String> nowInside = new HashSet<>();
+    for (Fence fence : index.query(new LatLngBounds(location, location))) {
+      if (fence.contains(location)) {
+        nowInside.add(fence.id);
+      }
+    }
+
+    List<Transition> transitions = new ArrayList<>();
+    for (String id : inside) {
+      if (!nowInside.contains(id)) {
+        transitions.add(new Transition(id, EXIT));
+      }
+    }
+    for (String id : nowInside) {
+      if (!inside.contains(id)) {
+        transitions.add(new Transition(id, ENTER));
+      }
+    }
+    inside = nowInside;
+    return transitions;
+  }
+}
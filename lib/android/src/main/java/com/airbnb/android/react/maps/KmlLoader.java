@@ -0,0 +1,62 @@
+package com.airbnb.android.react.maps;
+
+import android.content.Context;
+import android.os.AsyncTask;
+
+import com.facebook.common.logging.FLog;
+import com.facebook.react.common.ReactConstants;
+import com.google.android.gms.maps.GoogleMap;
+import com.google.maps.android.data.kml.KmlLayer;
+
+import java.io.InputStream;
+
+/**
+ * Downloads and parses a KML source on the shared AsyncTask thread pool. Downloads go through the
+ * DownloadCache, so an unchanged remote document is read from disk instead of downloaded again.
+ *
+ * Constructing a KmlLayer only parses the document and prepares its renderer, it does not touch
+ * the map until addLayerToMap() is called, so it is safe to build it off the main thread.
+ */
+public class KmlLoader extends AsyncTask<String, Void, KmlLayer> {
+
+  public interface Listener {
+    void onKmlLoaded(KmlLayer kmlLayer);
+  }
+
+  private final Context context;
+  private final GoogleMap map;
+  private final Listener listener;
+
+  public KmlLoader(Context context, GoogleMap map, Listener listener) {
+    super();
+
+    this.context = context;
+    this.map = map;
+    this.listener = listener;
+  }
+
+  public void load(String src) {
+    executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR, src);
+  }
+
+  @Override
+  protected KmlLayer doInBackground(String... srcs) {
+    InputStream stream = null;
+    try {
+      stream = FileUtil.openInputStream(context, srcs[0]);
+      return new KmlLayer(map, stream, context);
+    } catch (Exception e) {
+      FLog.e(ReactConstants.TAG, "Could not load kml from " + srcs[0], e);
+      return null;
+    } finally {
+      AirMapModule.closeQuietly(stream);
+    }
+  }
+
+  @Override
+  protected void onPostExecute(KmlLayer kmlLayer) {
+    if (kmlLayer != null && !isCancelled()) {
+      listener.onKmlLoaded(kmlLayer);
+    }
+  }
+}
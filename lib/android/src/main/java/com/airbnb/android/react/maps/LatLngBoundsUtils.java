@@ -3,8 +3,17 @@ package com.airbnb.android.react.maps;
 import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.LatLngBounds;
 
+import java.util.List;
+
 public class LatLngBoundsUtils {
   public static boolean BoundsAreDifferent(LatLngBounds a, LatLngBounds b) {
+    return BoundsAreDifferent(a, b, 1.0 / 2560);
+  }
+
+  /**
+   * @param fraction how much of the smaller region's span the center or span has to move by
+   */
+  public static boolean BoundsAreDifferent(LatLngBounds a, LatLngBounds b, double fraction) {
     LatLng centerA = a.getCenter();
     double latA = centerA.latitude;
     double lngA = centerA.longitude;
@@ -17,8 +26,8 @@ public class LatLngBoundsUtils {
     double latDeltaB = b.northeast.latitude - b.southwest.latitude;
     double lngDeltaB = b.northeast.longitude - b.southwest.longitude;
 
-    double latEps = LatitudeEpsilon(a, b);
-    double lngEps = LongitudeEpsilon(a, b);
+    double latEps = LatitudeEpsilon(a, b, fraction);
+    double lngEps = LongitudeEpsilon(a, b, fraction);
 
     return
         different(latA, latB, latEps) ||
@@ -31,17 +40,120 @@ public class LatLngBoundsUtils {
     return Math.abs(a - b) > epsilon;
   }
 
-  private static double LatitudeEpsilon(LatLngBounds a, LatLngBounds b) {
+  private static double LatitudeEpsilon(LatLngBounds a, LatLngBounds b, double fraction) {
     double sizeA = a.northeast.latitude - a.southwest.latitude; // something mod 180?
     double sizeB = b.northeast.latitude - b.southwest.latitude; // something mod 180?
     double size = Math.min(Math.abs(sizeA), Math.abs(sizeB));
-    return size / 2560;
+    return size * fraction;
   }
 
-  private static double LongitudeEpsilon(LatLngBounds a, LatLngBounds b) {
+  private static double LongitudeEpsilon(LatLngBounds a, LatLngBounds b, double fraction) {
     double sizeA = a.northeast.longitude - a.southwest.longitude;
     double sizeB = b.northeast.longitude - b.southwest.longitude;
     double size = Math.min(Math.abs(sizeA), Math.abs(sizeB));
-    return size / 2560;
+    return size * fraction;
+  }
+
+  /**
+   * @return the bounds of the given points, or null when there are none.
+   */
+  public static LatLngBounds BoundsOf(List<LatLng> points) {
+    if (points == null || points.isEmpty()) {
+      return null;
+    }
+    LatLngBounds.Builder builder = LatLngBounds.builder();
+    for (LatLng point : points) {
+      builder.include(point);
+    }
+    return builder.build();
+  }
+
+  /**
+   * @return the longitude ranges covered by the bounds, two of them when they cross the
+   * antimeridian, as {west, east, west, east}.
+   */
+  public static double[] LongitudeRanges(LatLngBounds bounds) {
+    double west = bounds.southwest.longitude;
+    double east = bounds.northeast.longitude;
+    if (west <= east) {
+      return new double[]{west, east};
+    }
+    return new double[]{west, 180, -180, east};
+  }
+
+  public static boolean BoundsIntersect(LatLngBounds a, LatLngBounds b) {
+    if (a.southwest.latitude > b.northeast.latitude ||
+        b.southwest.latitude > a.northeast.latitude) {
+      return false;
+    }
+
+    double[] rangesA = LongitudeRanges(a);
+    double[] rangesB = LongitudeRanges(b);
+    for (int i = 0; i < rangesA.length; i += 2) {
+      for (int j = 0; j < rangesB.length; j += 2) {
+        if (rangesA[i] <= rangesB[j + 1] && rangesB[j] <= rangesA[i + 1]) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Whether a polyline, or the outline of a polygon when closed, touches the bounds. Segments are
+   * treated as straight lines in lat/lng space.
+   */
+  public static boolean PathIntersects(List<LatLng> path, boolean closed, LatLngBounds bounds) {
+    for (LatLng point : path) {
+      if (bounds.contains(point)) {
+        return true;
+      }
+    }
+
+    double[] ranges = LongitudeRanges(bounds);
+    int count = path.size();
+    int segments = closed ? count : count - 1;
+    for (int i = 0; i < segments; i++) {
+      LatLng a = path.get(i);
+      LatLng b = path.get((i + 1) % count);
+      for (int j = 0; j < ranges.length; j += 2) {
+        if (SegmentIntersectsRect(a, b, bounds.southwest.latitude, bounds.northeast.latitude,
+            ranges[j], ranges[j + 1])) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  // Liang-Barsky clipping of the segment against the rectangle.
+  private static boolean SegmentIntersectsRect(LatLng a, LatLng b, double south, double north,
+      double west, double east) {
+    double dx = b.longitude - a.longitude;
+    double dy = b.latitude - a.latitude;
+    double[] p = {-dx, dx, -dy, dy};
+    double[] q = {
+        a.longitude - west, east - a.longitude, a.latitude - south, north - a.latitude};
+
+    double t0 = 0;
+    double t1 = 1;
+    for (int i = 0; i < 4; i++) {
+      if (p[i] == 0) {
+        if (q[i] < 0) {
+          return false;
+        }
+      } else {
+        double t = q[i] / p[i];
+        if (p[i] < 0) {
+          t0 = Math.max(t0, t);
+        } else {
+          t1 = Math.min(t1, t);
+        }
+        if (t0 > t1) {
+          return false;
+        }
+      }
+    }
+    return true;
   }
 }
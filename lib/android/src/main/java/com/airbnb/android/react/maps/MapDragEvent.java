@@ -0,0 +1,56 @@
+package com.airbnb.android.react.maps;
+
+import android.graphics.Point;
+
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeMap;
+import com.facebook.react.uimanager.events.Event;
+import com.facebook.react.uimanager.events.RCTEventEmitter;
+import com.google.android.gms.maps.model.LatLng;
+
+/**
+ * A pan or marker drag event. Intermediate events of a drag coalesce, so at most one of them per
+ * view reaches js in every frame, and the payload is only built for the one that does.
+ */
+public class MapDragEvent extends Event<MapDragEvent> {
+  private final String eventName;
+  private final LatLng coordinate;
+  private final Point position;
+  private final boolean continuous;
+
+  public MapDragEvent(int viewTag, String eventName, LatLng coordinate, Point position,
+      boolean continuous) {
+    super(viewTag);
+    this.eventName = eventName;
+    this.coordinate = coordinate;
+    this.position = position;
+    this.continuous = continuous;
+  }
+
+  @Override
+  public String getEventName() {
+    return eventName;
+  }
+
+  @Override
+  public boolean canCoalesce() {
+    return continuous;
+  }
+
+  @Override
+  public void dispatch(RCTEventEmitter rctEventEmitter) {
+    WritableMap event = new WritableNativeMap();
+
+    WritableMap coordinateMap = new WritableNativeMap();
+    coordinateMap.putDouble("latitude", coordinate.latitude);
+    coordinateMap.putDouble("longitude", coordinate.longitude);
+    event.putMap("coordinate", coordinateMap);
+
+    WritableMap positionMap = new WritableNativeMap();
+    positionMap.putDouble("x", position.x);
+    positionMap.putDouble("y", position.y);
+    event.putMap("position", positionMap);
+
+    rctEventEmitter.receiveEvent(getViewTag(), getEventName(), event);
+  }
+}
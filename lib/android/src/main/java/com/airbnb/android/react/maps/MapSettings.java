@@ -0,0 +1,96 @@
+package com.airbnb.android.react.maps;
+
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeMap;
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.UiSettings;
+
+/**
+ * The settings of a GoogleMap that map props change, captured from a new map so that a pooled
+ * view can be put back into the same state.
+ *
+ * The prop defaults can't be used for that: several of them differ from what a new GoogleMap
+ * starts with, e.g. scrollEnabled defaults to false while a new map scrolls.
+ */
+public class MapSettings {
+
+  private final int mapType;
+  private final boolean buildingsEnabled;
+  private final boolean indoorEnabled;
+  private final boolean trafficEnabled;
+  private final boolean compassEnabled;
+  private final boolean scrollGesturesEnabled;
+  private final boolean zoomGesturesEnabled;
+  private final boolean zoomControlsEnabled;
+  private final boolean rotateGesturesEnabled;
+  private final boolean tiltGesturesEnabled;
+  private final boolean indoorLevelPickerEnabled;
+  private final boolean myLocationButtonEnabled;
+  private final boolean mapToolbarEnabled;
+
+  private MapSettings(GoogleMap map) {
+    UiSettings settings = map.getUiSettings();
+    mapType = map.getMapType();
+    buildingsEnabled = map.isBuildingsEnabled();
+    indoorEnabled = map.isIndoorEnabled();
+    trafficEnabled = map.isTrafficEnabled();
+    compassEnabled = settings.isCompassEnabled();
+    scrollGesturesEnabled = settings.isScrollGesturesEnabled();
+    zoomGesturesEnabled = settings.isZoomGesturesEnabled();
+    zoomControlsEnabled = settings.isZoomControlsEnabled();
+    rotateGesturesEnabled = settings.isRotateGesturesEnabled();
+    tiltGesturesEnabled = settings.isTiltGesturesEnabled();
+    indoorLevelPickerEnabled = settings.isIndoorLevelPickerEnabled();
+    myLocationButtonEnabled = settings.isMyLocationButtonEnabled();
+    mapToolbarEnabled = settings.isMapToolbarEnabled();
+  }
+
+  public static MapSettings of(GoogleMap map) {
+    return new MapSettings(map);
+  }
+
+  /**
+   * Puts the map back into the captured state, zoom limits included.
+   */
+  public void restore(GoogleMap map) {
+    UiSettings settings = map.getUiSettings();
+    map.setMapType(mapType);
+    map.setBuildingsEnabled(buildingsEnabled);
+    map.setIndoorEnabled(indoorEnabled);
+    map.setTrafficEnabled(trafficEnabled);
+    map.resetMinMaxZoomPreference();
+    settings.setCompassEnabled(compassEnabled);
+    settings.setScrollGesturesEnabled(scrollGesturesEnabled);
+    settings.setZoomGesturesEnabled(zoomGesturesEnabled);
+    settings.setZoomControlsEnabled(zoomControlsEnabled);
+    settings.setRotateGesturesEnabled(rotateGesturesEnabled);
+    settings.setTiltGesturesEnabled(tiltGesturesEnabled);
+    settings.setIndoorLevelPickerEnabled(indoorLevelPickerEnabled);
+    settings.setMyLocationButtonEnabled(myLocationButtonEnabled);
+    settings.setMapToolbarEnabled(mapToolbarEnabled);
+  }
+
+  /**
+   * @return the current settings of the map, to compare a reused map with a new one.
+   */
+  public static WritableMap toWritableMap(GoogleMap map) {
+    MapSettings current = new MapSettings(map);
+    WritableMap result = new WritableNativeMap();
+    result.putInt("mapType", current.mapType);
+    result.putBoolean("buildingsEnabled", current.buildingsEnabled);
+    result.putBoolean("indoorEnabled", current.indoorEnabled);
+    result.putBoolean("trafficEnabled", current.trafficEnabled);
+    result.putBoolean("compassEnabled", current.compassEnabled);
+    result.putBoolean("scrollGesturesEnabled", current.scrollGesturesEnabled);
+    result.putBoolean("zoomGesturesEnabled", current.zoomGesturesEnabled);
+    result.putBoolean("zoomControlsEnabled", current.zoomControlsEnabled);
+    result.putBoolean("rotateGesturesEnabled", current.rotateGesturesEnabled);
+    result.putBoolean("tiltGesturesEnabled", current.tiltGesturesEnabled);
+    result.putBoolean("indoorLevelPickerEnabled", current.indoorLevelPickerEnabled);
+    result.putBoolean("myLocationButtonEnabled", current.myLocationButtonEnabled);
+    result.putBoolean("mapToolbarEnabled", current.mapToolbarEnabled);
+    result.putDouble("minZoomLevel", map.getMinZoomLevel());
+    result.putDouble("maxZoomLevel", map.getMaxZoomLevel());
+    return result;
+  }
+}
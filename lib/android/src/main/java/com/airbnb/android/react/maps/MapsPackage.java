@@ -44,7 +44,10 @@ public class MapsPackage implements ReactPackage {
     AirMapLocalTileManager localTileManager = new AirMapLocalTileManager(reactContext);
     AirMapOverlayManager overlayManager = new AirMapOverlayManager(reactContext);
     AirMapHeatmapManager heatmapManager = new AirMapHeatmapManager();
+    AirMapGeoJsonManager geoJsonManager = new AirMapGeoJsonManager(reactContext);
     mapManager.setMarkerManager(annotationManager);
+    AirMapMarkerManager.register(reactContext, annotationManager);
+    AirMapViewPool.get(reactContext).setManager(mapManager);
 
     return Arrays.<ViewManager>asList(
         calloutManager,
@@ -59,7 +62,8 @@ public class MapsPackage implements ReactPackage {
         gsUrlTileManager,
         localTileManager,
         overlayManager,
-        heatmapManager
+        heatmapManager,
+        geoJsonManager
     );
   }
 }
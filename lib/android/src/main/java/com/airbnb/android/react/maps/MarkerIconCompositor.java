@@ -0,0 +1,166 @@
+package com.airbnb.android.react.maps;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.util.LruCache;
+
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+
+import java.util.ArrayDeque;
+
+/**
+ * Draws marker images and their custom views into one icon on a background thread, for markers
+ * that have both. The bitmaps are pooled by size, so icons that are redrawn while views change
+ * don't allocate new ones. The pool is bounded in bytes, dropping the least recently used sizes
+ * first, and emptied when the system asks to trim memory.
+ */
+public class MarkerIconCompositor {
+
+  public interface Callback {
+    /**
+     * Called on the main thread. The bitmap backs the descriptor and goes back to the pool through
+     * {@link #release} once the icon is replaced.
+     */
+    void onComposited(BitmapDescriptor descriptor, Bitmap bitmap);
+  }
+
+  private static final int MAX_POOLED_PER_SIZE = 4;
+  private static final int MAX_POOL_SIZE_BYTES = 4 * 1024 * 1024;
+
+  private static volatile MarkerIconCompositor instance;
+
+  private final Handler backgroundHandler;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private final LruCache<String, ArrayDeque<Bitmap>> pool =
+      new LruCache<String, ArrayDeque<Bitmap>>(MAX_POOL_SIZE_BYTES) {
+        @Override
+        protected int sizeOf(String key, ArrayDeque<Bitmap> bitmaps) {
+          int size = 0;
+          for (Bitmap bitmap : bitmaps) {
+            size += bitmap.getByteCount();
+          }
+          return size;
+        }
+      };
+
+  private final ComponentCallbacks2 trimCallbacks = new ComponentCallbacks2() {
+    @Override
+    public void onTrimMemory(int level) {
+      synchronized (pool) {
+        pool.evictAll();
+      }
+    }
+
+    @Override
+    public void onLowMemory() {
+      onTrimMemory(TRIM_MEMORY_COMPLETE);
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+  };
+
+  private MarkerIconCompositor() {
+    HandlerThread thread =
+        new HandlerThread("AirMapMarkerCompositor", Process.THREAD_PRIORITY_BACKGROUND);
+    thread.start();
+    backgroundHandler = new Handler(thread.getLooper());
+  }
+
+  static MarkerIconCompositor getInstance(Context context) {
+    if (instance == null) {
+      synchronized (MarkerIconCompositor.class) {
+        if (instance == null) {
+          MarkerIconCompositor compositor = new MarkerIconCompositor();
+          context.getApplicationContext().registerComponentCallbacks(compositor.trimCallbacks);
+          instance = compositor;
+        }
+      }
+    }
+
+    return instance;
+  }
+
+  /**
+   * @return a transparent bitmap of the given size, from the pool when there is one.
+   */
+  public Bitmap obtain(int width, int height, Bitmap.Config config) {
+    Bitmap bitmap = null;
+    String key = key(width, height, config);
+    synchronized (pool) {
+      // taken out and put back so that the pool sees the size change
+      ArrayDeque<Bitmap> bitmaps = pool.remove(key);
+      if (bitmaps != null) {
+        bitmap = bitmaps.poll();
+        if (!bitmaps.isEmpty()) {
+          pool.put(key, bitmaps);
+        }
+      }
+    }
+    if (bitmap == null) {
+      return Bitmap.createBitmap(width, height, config);
+    }
+    bitmap.eraseColor(Color.TRANSPARENT);
+    return bitmap;
+  }
+
+  public void release(Bitmap bitmap) {
+    if (bitmap == null || bitmap.isRecycled() || bitmap.getConfig() == null) {
+      return;
+    }
+    String key = key(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig());
+    synchronized (pool) {
+      ArrayDeque<Bitmap> bitmaps = pool.remove(key);
+      if (bitmaps == null) {
+        bitmaps = new ArrayDeque<>();
+      }
+      if (bitmaps.size() < MAX_POOLED_PER_SIZE) {
+        bitmaps.add(bitmap);
+      }
+      pool.put(key, bitmaps);
+    }
+  }
+
+  /**
+   * Draws the view over the image. The view bitmap must come from {@link #obtain} and is released
+   * here, the image is only read.
+   */
+  public void composite(final Bitmap image, final Bitmap view, final Callback callback) {
+    backgroundHandler.post(new Runnable() {
+      @Override
+      public void run() {
+        int width = Math.max(image.getWidth(), view.getWidth());
+        int height = Math.max(image.getHeight(), view.getHeight());
+        // whatever the image config, an RGB_565 or hardware target would drop the view's
+        // transparency or can't be drawn into at all
+        final Bitmap combined = obtain(width, height, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(combined);
+        canvas.drawBitmap(image, 0, 0, null);
+        canvas.drawBitmap(view, 0, 0, null);
+        release(view);
+
+        final BitmapDescriptor descriptor = BitmapDescriptorFactory.fromBitmap(combined);
+        mainHandler.post(new Runnable() {
+          @Override
+          public void run() {
+            callback.onComposited(descriptor, combined);
+          }
+        });
+      }
+    });
+  }
+
+  private static String key(int width, int height, Bitmap.Config config) {
+    return width + "x" + height + ":" + config;
+  }
+}
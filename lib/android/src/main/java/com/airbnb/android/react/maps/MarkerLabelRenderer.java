@@ -0,0 +1,177 @@
+package com.airbnb.android.react.maps;
+
+import android.content.res.AssetManager;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.graphics.Typeface;
+import android.text.TextPaint;
+import android.util.LruCache;
+
+import com.facebook.react.views.text.ReactFontManager;
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Draws text label marker icons straight to a bitmap, without a React view to lay out and draw.
+ *
+ * Icons are cached by text and style, so markers showing the same label share one bitmap, and the
+ * text paint of each style is shared by all its labels. Glyphs themselves are cached by the
+ * platform text renderer.
+ *
+ * Only used from the main thread.
+ */
+public class MarkerLabelRenderer {
+
+  /**
+   * A label and its style, sizes in pixels.
+   */
+  public static class Label {
+    final String text;
+    final float fontSize;
+    final String fontFamily;
+    final boolean bold;
+    final int color;
+    final int backgroundColor;
+    final int borderColor;
+    final float borderWidth;
+    final float paddingHorizontal;
+    final float paddingVertical;
+    final float cornerRadius;
+
+    public Label(String text, float fontSize, String fontFamily, boolean bold, int color,
+        int backgroundColor, int borderColor, float borderWidth, float paddingHorizontal,
+        float paddingVertical, float cornerRadius) {
+      this.text = text;
+      this.fontSize = fontSize;
+      this.fontFamily = fontFamily;
+      this.bold = bold;
+      this.color = color;
+      this.backgroundColor = backgroundColor;
+      this.borderColor = borderColor;
+      this.borderWidth = borderWidth;
+      this.paddingHorizontal = paddingHorizontal;
+      this.paddingVertical = paddingVertical;
+      this.cornerRadius = cornerRadius;
+    }
+
+    String textStyleKey() {
+      return fontFamily + ":" + fontSize + ":" + bold + ":" + color;
+    }
+
+    String key() {
+      return textStyleKey() + ":" + backgroundColor + ":" + borderColor + ":" + borderWidth +
+          ":" + paddingHorizontal + ":" + paddingVertical + ":" + cornerRadius + ":" + text;
+    }
+  }
+
+  private static final int MAX_CACHE_SIZE_BYTES = 4 * 1024 * 1024;
+  private static final int MAX_TEXT_PAINTS = 32;
+
+  private static MarkerLabelRenderer instance;
+
+  private final Map<String, TextPaint> textPaints = new HashMap<>();
+  private final Paint backgroundPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+  private final RectF rect = new RectF();
+
+  private static class Icon {
+    final BitmapDescriptor descriptor;
+    final int byteCount;
+
+    Icon(Bitmap bitmap) {
+      this.descriptor = BitmapDescriptorFactory.fromBitmap(bitmap);
+      this.byteCount = bitmap.getByteCount();
+    }
+  }
+
+  private final LruCache<String, Icon> icons = new LruCache<String, Icon>(
+      MAX_CACHE_SIZE_BYTES) {
+    @Override
+    protected int sizeOf(String key, Icon icon) {
+      return icon.byteCount;
+    }
+  };
+
+  private MarkerLabelRenderer() {
+  }
+
+  static MarkerLabelRenderer getInstance() {
+    if (instance == null) {
+      instance = new MarkerLabelRenderer();
+    }
+
+    return instance;
+  }
+
+  /**
+   * @return the icon of the label, drawn the first time it is asked for.
+   */
+  public BitmapDescriptor getIcon(Label label, AssetManager assets) {
+    String key = label.key();
+    Icon icon = icons.get(key);
+    if (icon == null) {
+      icon = new Icon(draw(label, assets));
+      icons.put(key, icon);
+    }
+    return icon.descriptor;
+  }
+
+  private Bitmap draw(Label label, AssetManager assets) {
+    TextPaint textPaint = getTextPaint(label, assets);
+    Paint.FontMetrics metrics = textPaint.getFontMetrics();
+    float inset = label.borderWidth + label.paddingHorizontal;
+    float textWidth = textPaint.measureText(label.text);
+    float textHeight = metrics.descent - metrics.ascent;
+    int width = Math.max(1, (int) Math.ceil(textWidth + 2 * inset));
+    int height = Math.max(1,
+        (int) Math.ceil(textHeight + 2 * (label.borderWidth + label.paddingVertical)));
+
+    Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    Canvas canvas = new Canvas(bitmap);
+    float radius = Math.min(label.cornerRadius, Math.min(width, height) / 2f);
+    if (Color.alpha(label.backgroundColor) != 0) {
+      backgroundPaint.setStyle(Paint.Style.FILL);
+      backgroundPaint.setColor(label.backgroundColor);
+      rect.set(0, 0, width, height);
+      canvas.drawRoundRect(rect, radius, radius, backgroundPaint);
+    }
+    if (label.borderWidth > 0 && Color.alpha(label.borderColor) != 0) {
+      // the stroke is centered on the path, so it is inset to stay within the bitmap
+      float half = label.borderWidth / 2;
+      backgroundPaint.setStyle(Paint.Style.STROKE);
+      backgroundPaint.setStrokeWidth(label.borderWidth);
+      backgroundPaint.setColor(label.borderColor);
+      rect.set(half, half, width - half, height - half);
+      canvas.drawRoundRect(rect, Math.max(0, radius - half), Math.max(0, radius - half),
+          backgroundPaint);
+    }
+    canvas.drawText(label.text, (width - textWidth) / 2,
+        (height - textHeight) / 2 - metrics.ascent, textPaint);
+    return bitmap;
+  }
+
+  private TextPaint getTextPaint(Label label, AssetManager assets) {
+    String key = label.textStyleKey();
+    TextPaint paint = textPaints.get(key);
+    if (paint == null) {
+      if (textPaints.size() >= MAX_TEXT_PAINTS) {
+        textPaints.clear();
+      }
+      int style = label.bold ? Typeface.BOLD : Typeface.NORMAL;
+      Typeface typeface = label.fontFamily != null
+          ? ReactFontManager.getInstance().getTypeface(label.fontFamily, style, assets)
+          : Typeface.defaultFromStyle(style);
+      paint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+      paint.setTypeface(typeface);
+      paint.setTextSize(label.fontSize);
+      paint.setColor(label.color);
+      textPaints.put(key, paint);
+    }
+    return paint;
+  }
+}
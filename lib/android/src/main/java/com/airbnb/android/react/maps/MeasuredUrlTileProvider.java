@@ -0,0 +1,86 @@
+package com.airbnb.android.react.maps;
+
+import com.google.android.gms.maps.model.Tile;
+import com.google.android.gms.maps.model.TileProvider;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+
+/**
+ * Tile provider that downloads the tile of a URL itself instead of leaving it to UrlTileProvider,
+ * so that the time until the tile server answered, the outcome and the bytes received can be
+ * recorded in {@link AirMapTileMetrics}.
+ *
+ * Like UrlTileProvider, tiles without a URL don't exist and failed downloads are left for the
+ * map to ask for again.
+ */
+public abstract class MeasuredUrlTileProvider implements TileProvider {
+
+  private static final int BUFFER_SIZE = 16 * 1024;
+  private static final int TIMEOUT_MS = 15000;
+
+  private final String metricsName;
+  private final int width;
+  private final int height;
+
+  public MeasuredUrlTileProvider(String metricsName, int width, int height) {
+    this.metricsName = metricsName;
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * @return the URL of the tile, or null when there is no tile at these coordinates.
+   */
+  public abstract URL getTileUrl(int x, int y, int zoom);
+
+  @Override
+  public Tile getTile(int x, int y, int zoom) {
+    URL url = getTileUrl(x, y, zoom);
+    if (url == null) {
+      return NO_TILE;
+    }
+
+    long start = System.nanoTime();
+    byte[] data = download(url);
+    AirMapTileMetrics.getInstance().get(metricsName)
+        .record(start, data != null, data == null ? 0 : data.length);
+    return data == null ? null : new Tile(width, height, data);
+  }
+
+  private static byte[] download(URL url) {
+    URLConnection connection = null;
+    InputStream in = null;
+    try {
+      connection = url.openConnection();
+      connection.setConnectTimeout(TIMEOUT_MS);
+      connection.setReadTimeout(TIMEOUT_MS);
+      if (connection instanceof HttpURLConnection &&
+          ((HttpURLConnection) connection).getResponseCode() != HttpURLConnection.HTTP_OK) {
+        return null;
+      }
+      in = connection.getInputStream();
+
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      byte[] chunk = new byte[BUFFER_SIZE];
+      int read;
+      while ((read = in.read(chunk)) != -1) {
+        buffer.write(chunk, 0, read);
+      }
+      return buffer.toByteArray();
+    } catch (IOException e) {
+      return null;
+    } catch (OutOfMemoryError e) {
+      return null;
+    } finally {
+      AirMapModule.closeQuietly(in);
+      if (connection instanceof HttpURLConnection) {
+        ((HttpURLConnection) connection).disconnect();
+      }
+    }
+  }
+}
@@ -7,14 +7,18 @@ import com.facebook.react.uimanager.events.RCTEventEmitter;
 import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.LatLngBounds;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 public class RegionChangeEvent extends Event<RegionChangeEvent> {
   private final LatLngBounds bounds;
   private final boolean continuous;
+  private final Stats stats;
 
-  public RegionChangeEvent(int id, LatLngBounds bounds, boolean continuous) {
+  public RegionChangeEvent(int id, LatLngBounds bounds, boolean continuous, Stats stats) {
     super(id);
     this.bounds = bounds;
     this.continuous = continuous;
+    this.stats = stats;
   }
 
   @Override
@@ -22,13 +26,27 @@ public class RegionChangeEvent extends Event<RegionChangeEvent> {
     return "topChange";
   }
 
+  // Only the latest region of a camera move matters, the final one is always delivered.
   @Override
   public boolean canCoalesce() {
-    return false;
+    return continuous;
+  }
+
+  // The dispatcher only asks the newer event, a continuous event must not replace a final one.
+  @Override
+  public short getCoalescingKey() {
+    return (short) (continuous ? 0 : 1);
+  }
+
+  @Override
+  public RegionChangeEvent coalesce(RegionChangeEvent otherEvent) {
+    stats.coalesced.incrementAndGet();
+    return super.coalesce(otherEvent);
   }
 
   @Override
   public void dispatch(RCTEventEmitter rctEventEmitter) {
+    stats.delivered.incrementAndGet();
 
     WritableMap event = new WritableNativeMap();
     event.putBoolean("continuous", continuous);
@@ -43,4 +61,26 @@ public class RegionChangeEvent extends Event<RegionChangeEvent> {
 
     rctEventEmitter.receiveEvent(getViewTag(), getEventName(), event);
   }
+
+  /**
+   * Counts the region events of one map: delivered to js, dropped by the throttle or minimum
+   * delta filter, and coalesced by the event dispatcher.
+   */
+  public static class Stats {
+    final AtomicLong delivered = new AtomicLong();
+    final AtomicLong dropped = new AtomicLong();
+    final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * @param reset whether to reset the counters as they are read, nothing counted in between is
+     * lost.
+     */
+    public WritableMap toWritableMap(boolean reset) {
+      WritableMap result = new WritableNativeMap();
+      result.putDouble("delivered", reset ? delivered.getAndSet(0) : delivered.get());
+      result.putDouble("dropped", reset ? dropped.getAndSet(0) : dropped.get());
+      result.putDouble("coalesced", reset ? coalesced.getAndSet(0) : coalesced.get());
+      return result;
+    }
+  }
 }
@@ -0,0 +1,134 @@
+package com.airbnb.android.react.maps;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.facebook.common.logging.FLog;
+import com.facebook.react.common.ReactConstants;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.annotation.Nullable;
+
+/**
+ * Disk cache for the snapshots shown by maps with cacheEnabled, so a map that was rendered before
+ * shows up without waiting for the map to load again.
+ *
+ * Keys are built by the map from what the snapshot depends on. Entries are evicted least recently
+ * used first once the cache grows beyond its size, reads count as a use.
+ */
+public class SnapshotCache {
+
+  public interface Callback {
+    /**
+     * Called on the main thread, with null on a miss.
+     */
+    void onSnapshot(@Nullable Bitmap bitmap);
+  }
+
+  private static final String DIRECTORY = "airmap-snapshots";
+  private static final String SUFFIX = ".png";
+  private static final long MAX_SIZE_BYTES = 32 * 1024 * 1024;
+
+  private static volatile SnapshotCache instance;
+
+  private final File directory;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+  private SnapshotCache(Context context) {
+    directory = new File(context.getCacheDir(), DIRECTORY);
+  }
+
+  static SnapshotCache getInstance(Context context) {
+    if (instance == null) {
+      synchronized (SnapshotCache.class) {
+        if (instance == null) {
+          instance = new SnapshotCache(context.getApplicationContext());
+        }
+      }
+    }
+
+    return instance;
+  }
+
+  /**
+   * Decodes the snapshot stored under the key off the main thread.
+   */
+  public void get(final String key, final Callback callback) {
+    final File file = fileFor(key);
+    if (!file.exists()) {
+      callback.onSnapshot(null);
+      return;
+    }
+
+    AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+      @Override
+      public void run() {
+        final Bitmap bitmap = BitmapFactory.decodeFile(file.getPath());
+        if (bitmap != null) {
+          file.setLastModified(System.currentTimeMillis());
+        } else {
+          file.delete();
+        }
+        mainHandler.post(new Runnable() {
+          @Override
+          public void run() {
+            callback.onSnapshot(bitmap);
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Stores the snapshot under the key off the main thread. The bitmap must not be recycled.
+   */
+  public void put(final String key, final Bitmap bitmap) {
+    AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+      @Override
+      public void run() {
+        write(fileFor(key), bitmap);
+      }
+    });
+  }
+
+  private File fileFor(String key) {
+    return new File(directory, key + SUFFIX);
+  }
+
+  // Written next to the entry first, a half written file must never be decoded.
+  private synchronized void write(File file, Bitmap bitmap) {
+    File temp = null;
+    OutputStream out = null;
+    boolean written = false;
+    try {
+      if (!directory.exists() && !directory.mkdirs()) {
+        return;
+      }
+      temp = File.createTempFile(file.getName(), ".tmp", directory);
+      out = new BufferedOutputStream(new FileOutputStream(temp));
+      written = bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+    } catch (IOException e) {
+      FLog.w(ReactConstants.TAG, "Could not write map snapshot cache entry", e);
+    } finally {
+      AirMapModule.closeQuietly(out);
+    }
+
+    if (temp == null) {
+      return;
+    }
+    if (!written || !temp.renameTo(file)) {
+      temp.delete();
+      return;
+    }
+    FileUtil.trimDirectory(directory, MAX_SIZE_BYTES);
+  }
+}
@@ -0,0 +1,442 @@
+package com.airbnb.android.react.maps;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.net.Uri;
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.DisplayMetrics;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import com.facebook.react.bridge.LifecycleEventListener;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+import com.google.android.gms.maps.CameraUpdate;
+import com.google.android.gms.maps.CameraUpdateFactory;
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.GoogleMapOptions;
+import com.google.android.gms.maps.MapView;
+import com.google.android.gms.maps.OnMapReadyCallback;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+import com.google.android.gms.maps.model.CameraPosition;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.android.gms.maps.model.MapStyleOptions;
+import com.google.android.gms.maps.model.MarkerOptions;
+import com.google.android.gms.maps.model.PolygonOptions;
+import com.google.android.gms.maps.model.PolylineOptions;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import javax.annotation.Nullable;
+
+/**
+ * Renders static maps to files with a single hidden lite mode MapView, one request at a time, so
+ * thumbnails don't need a mounted map each.
+ *
+ * The map view is kept under the activity's content while there is work, and released shortly
+ * after the queue runs empty. At most one snapshot is held in memory.
+ *
+ * Only used from the main thread, except for {@link #render}.
+ */
+public class StaticMapRenderer {
+
+  public static final String PROGRESS_EVENT = "AirMapStaticMapProgress";
+
+  private static final int RENDER_TIMEOUT_MS = 15000;
+  private static final int RELEASE_DELAY_MS = 10000;
+  private static final String DIRECTORY = "airmap-static-maps";
+  // the least recently written files are deleted past this size
+  private static final long MAX_SIZE_BYTES = 32 * 1024 * 1024;
+
+  private static class Batch {
+    final String id;
+    final ReadableArray requests;
+    final Promise promise;
+    final WritableArray results = new WritableNativeArray();
+    int next = 0;
+
+    Batch(String id, ReadableArray requests, Promise promise) {
+      this.id = id;
+      this.requests = requests;
+      this.promise = promise;
+    }
+  }
+
+  private final ReactApplicationContext context;
+  private final Handler handler = new Handler(Looper.getMainLooper());
+  private final Queue<Batch> batches = new ArrayDeque<>();
+  private MapView mapView;
+  private GoogleMap map;
+  private boolean rendering = false;
+  // identifies the request in progress, callbacks of an abandoned request are ignored
+  private int renderToken = 0;
+
+  private final Runnable releaseRunnable = new Runnable() {
+    @Override
+    public void run() {
+      if (batches.isEmpty() && !rendering) {
+        releaseMapView();
+      }
+    }
+  };
+
+  public StaticMapRenderer(ReactApplicationContext context) {
+    this.context = context;
+    context.addLifecycleEventListener(new LifecycleEventListener() {
+      @Override
+      public void onHostResume() {
+      }
+
+      @Override
+      public void onHostPause() {
+      }
+
+      @Override
+      public void onHostDestroy() {
+        rejectAll("The activity was destroyed");
+      }
+    });
+  }
+
+  /**
+   * Queues the requests, the promise resolves with one result per request once all are rendered.
+   * May be called from any thread.
+   */
+  public void render(final String batchId, final ReadableArray requests, final Promise promise) {
+    handler.post(new Runnable() {
+      @Override
+      public void run() {
+        batches.add(new Batch(batchId, requests, promise));
+        handler.removeCallbacks(releaseRunnable);
+        if (!rendering) {
+          renderNext();
+        }
+      }
+    });
+  }
+
+  private void renderNext() {
+    final Batch batch = batches.peek();
+    if (batch == null) {
+      handler.postDelayed(releaseRunnable, RELEASE_DELAY_MS);
+      return;
+    }
+    if (batch.next >= batch.requests.size()) {
+      batches.poll();
+      batch.promise.resolve(batch.results);
+      renderNext();
+      return;
+    }
+
+    Activity activity = context.getCurrentActivity();
+    if (activity == null) {
+      rejectAll("No activity to render static maps in");
+      return;
+    }
+    rendering = true;
+    if (!prepareMapView(activity)) {
+      // renderNext is called again once the map is ready
+      return;
+    }
+
+    final ReadableMap request = batch.requests.getMap(batch.next);
+    final String id = request.hasKey("id") ? request.getString("id") : null;
+    final int token = ++renderToken;
+    try {
+      prepareMap(request);
+    } catch (RuntimeException e) {
+      finish(batch, id, null, e.getMessage());
+      return;
+    }
+
+    handler.postDelayed(new Runnable() {
+      @Override
+      public void run() {
+        if (token == renderToken) {
+          renderToken++;
+          finish(batch, id, null, "Timed out rendering the static map");
+        }
+      }
+    }, RENDER_TIMEOUT_MS);
+
+    map.setOnMapLoadedCallback(new GoogleMap.OnMapLoadedCallback() {
+      @Override
+      public void onMapLoaded() {
+        if (token != renderToken) {
+          return;
+        }
+        map.snapshot(new GoogleMap.SnapshotReadyCallback() {
+          @Override
+          public void onSnapshotReady(@Nullable Bitmap snapshot) {
+            if (token != renderToken) {
+              return;
+            }
+            // the timeout no longer applies, writing the file always finishes the request
+            renderToken++;
+            if (snapshot == null) {
+              finish(batch, id, null, "Failed to generate bitmap, snapshot = null");
+            } else {
+              write(batch, id, request, snapshot);
+            }
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * @return false while the map isn't ready yet.
+   */
+  private boolean prepareMapView(Activity activity) {
+    if (mapView != null && mapView.getContext() != activity) {
+      releaseMapView();
+    }
+    if (mapView == null) {
+      ViewGroup root = (ViewGroup) activity.findViewById(android.R.id.content);
+      mapView = new MapView(activity, new GoogleMapOptions().liteMode(true));
+      mapView.setImportantForAccessibility(View.IMPORTANT_FOR_ACCESSIBILITY_NO_HIDE_DESCENDANTS);
+      mapView.onCreate(null);
+      mapView.onResume();
+      // drawn below the app's content, a detached or invisible map view doesn't render
+      root.addView(mapView, 0, new FrameLayout.LayoutParams(1, 1));
+
+      final MapView requested = mapView;
+      mapView.getMapAsync(new OnMapReadyCallback() {
+        @Override
+        public void onMapReady(GoogleMap googleMap) {
+          if (requested == mapView) {
+            map = googleMap;
+            map.getUiSettings().setMapToolbarEnabled(false);
+            renderNext();
+          }
+        }
+      });
+    }
+    return map != null;
+  }
+
+  private void prepareMap(ReadableMap request) {
+    DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+    int width = (int) (metrics.density * request.getDouble("width"));
+    int height = (int) (metrics.density * request.getDouble("height"));
+    mapView.setLayoutParams(new FrameLayout.LayoutParams(width, height));
+
+    map.clear();
+    Integer mapType = request.hasKey("mapType")
+        ? AirMapManager.MAP_TYPES.get(request.getString("mapType")) : null;
+    map.setMapType(mapType != null ? mapType : GoogleMap.MAP_TYPE_NORMAL);
+    map.setMapStyle(request.hasKey("customMapStyleString")
+        ? new MapStyleOptions(request.getString("customMapStyleString")) : null);
+
+    if (request.hasKey("markers")) {
+      ReadableArray markers = request.getArray("markers");
+      for (int i = 0; i < markers.size(); i++) {
+        ReadableMap marker = markers.getMap(i);
+        MarkerOptions options = new MarkerOptions()
+            .position(AirMapManager.toLatLng(marker.getMap("coordinate")));
+        if (marker.hasKey("pinColor")) {
+          float[] hsv = new float[3];
+          Color.colorToHSV(marker.getInt("pinColor"), hsv);
+          options.icon(BitmapDescriptorFactory.defaultMarker(hsv[0]));
+        }
+        map.addMarker(options);
+      }
+    }
+    if (request.hasKey("polylines")) {
+      ReadableArray polylines = request.getArray("polylines");
+      for (int i = 0; i < polylines.size(); i++) {
+        ReadableMap polyline = polylines.getMap(i);
+        PolylineOptions options = new PolylineOptions()
+            .addAll(toLatLngs(polyline.getArray("coordinates")));
+        if (polyline.hasKey("strokeColor")) {
+          options.color(polyline.getInt("strokeColor"));
+        }
+        if (polyline.hasKey("strokeWidth")) {
+          options.width(metrics.density * (float) polyline.getDouble("strokeWidth"));
+        }
+        map.addPolyline(options);
+      }
+    }
+    if (request.hasKey("polygons")) {
+      ReadableArray polygons = request.getArray("polygons");
+      for (int i = 0; i < polygons.size(); i++) {
+        ReadableMap polygon = polygons.getMap(i);
+        PolygonOptions options = new PolygonOptions()
+            .addAll(toLatLngs(polygon.getArray("coordinates")));
+        if (polygon.hasKey("strokeColor")) {
+          options.strokeColor(polygon.getInt("strokeColor"));
+        }
+        if (polygon.hasKey("fillColor")) {
+          options.fillColor(polygon.getInt("fillColor"));
+        }
+        if (polygon.hasKey("strokeWidth")) {
+          options.strokeWidth(metrics.density * (float) polygon.getDouble("strokeWidth"));
+        }
+        map.addPolygon(options);
+      }
+    }
+
+    map.moveCamera(getCameraUpdate(request, width, height));
+  }
+
+  private static CameraUpdate getCameraUpdate(ReadableMap request, int width, int height) {
+    if (request.hasKey("camera")) {
+      ReadableMap camera = request.getMap("camera");
+      CameraPosition.Builder builder = new CameraPosition.Builder()
+          .target(AirMapManager.toLatLng(camera.getMap("center")));
+      if (camera.hasKey("zoom")) {
+        builder.zoom((float) camera.getDouble("zoom"));
+      }
+      if (camera.hasKey("heading")) {
+        builder.bearing((float) camera.getDouble("heading"));
+      }
+      if (camera.hasKey("pitch")) {
+        builder.tilt((float) camera.getDouble("pitch"));
+      }
+      return CameraUpdateFactory.newCameraPosition(builder.build());
+    }
+
+    ReadableMap region = request.getMap("region");
+    double lng = region.getDouble("longitude");
+    double lat = region.getDouble("latitude");
+    double lngDelta = region.getDouble("longitudeDelta");
+    double latDelta = region.getDouble("latitudeDelta");
+    LatLngBounds bounds = new LatLngBounds(
+        new LatLng(lat - latDelta / 2, lng - lngDelta / 2), // southwest
+        new LatLng(lat + latDelta / 2, lng + lngDelta / 2)  // northeast
+    );
+    // the size is given, the map view may not have been laid out at it yet
+    return CameraUpdateFactory.newLatLngBounds(bounds, width, height, 0);
+  }
+
+  private static List<LatLng> toLatLngs(ReadableArray coordinates) {
+    List<LatLng> points = new ArrayList<>(coordinates.size());
+    for (int i = 0; i < coordinates.size(); i++) {
+      points.add(AirMapManager.toLatLng(coordinates.getMap(i)));
+    }
+    return points;
+  }
+
+  private void write(final Batch batch, final String id, ReadableMap request,
+      final Bitmap snapshot) {
+    final String format = request.hasKey("format") ? request.getString("format") : "png";
+    final Bitmap.CompressFormat compressFormat = format.equals("jpg")
+        ? Bitmap.CompressFormat.JPEG : Bitmap.CompressFormat.PNG;
+    final double quality = request.hasKey("quality") ? request.getDouble("quality") : 1.0;
+
+    AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+      @Override
+      public void run() {
+        String uri = null;
+        String error = null;
+        OutputStream out = null;
+        File directory = new File(context.getCacheDir(), DIRECTORY);
+        try {
+          if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+          }
+          File file = File.createTempFile("AirMapStaticMap", "." + format, directory);
+          out = new FileOutputStream(file);
+          snapshot.compress(compressFormat, (int) (100.0 * quality), out);
+          uri = Uri.fromFile(file).toString();
+        } catch (IOException e) {
+          error = e.getMessage();
+        } finally {
+          AirMapModule.closeQuietly(out);
+          snapshot.recycle();
+        }
+        synchronized (StaticMapRenderer.class) {
+          FileUtil.trimDirectory(directory, MAX_SIZE_BYTES);
+        }
+
+        final String result = uri;
+        final String failure = error;
+        handler.post(new Runnable() {
+          @Override
+          public void run() {
+            finish(batch, id, result, failure);
+          }
+        });
+      }
+    });
+  }
+
+  private void finish(Batch batch, @Nullable String id, @Nullable String uri,
+      @Nullable String error) {
+    if (batches.peek() != batch) {
+      // rejected while the file was written
+      return;
+    }
+    int index = batch.next++;
+    batch.results.pushMap(makeResult(id, uri, error));
+
+    WritableMap progress = makeResult(id, uri, error);
+    progress.putString("batchId", batch.id);
+    progress.putInt("index", index);
+    progress.putInt("total", batch.requests.size());
+    context
+        .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+        .emit(PROGRESS_EVENT, progress);
+
+    rendering = false;
+    renderNext();
+  }
+
+  private static WritableMap makeResult(@Nullable String id, @Nullable String uri,
+      @Nullable String error) {
+    WritableMap result = new WritableNativeMap();
+    result.putString("id", id);
+    if (uri != null) {
+      result.putString("uri", uri);
+    } else {
+      result.putString("error", error != null ? error : "Failed to render the static map");
+    }
+    return result;
+  }
+
+  private void rejectAll(String message) {
+    renderToken++;
+    rendering = false;
+    while (!batches.isEmpty()) {
+      batches.poll().promise.reject("AirMapStaticMap", message);
+    }
+    releaseMapView();
+  }
+
+  private void releaseMapView() {
+    handler.removeCallbacks(releaseRunnable);
+    if (mapView == null) {
+      return;
+    }
+    if (map != null) {
+      map.setOnMapLoadedCallback(null);
+      map.clear();
+    }
+    mapView.onPause();
+    mapView.onDestroy();
+    if (mapView.getParent() != null) {
+      ((ViewGroup) mapView.getParent()).removeView(mapView);
+    }
+    mapView = null;
+    map = null;
+  }
+}
@@ -0,0 +1,166 @@
+import PropTypes from 'prop-types';
+import React from 'react';
+import {
+  ColorPropType,
+  ViewPropTypes,
+  View,
+  Platform,
+  processColor,
+} from 'react-native';
+import decorateMapComponent, {
+  NOT_SUPPORTED,
+  USES_DEFAULT_IMPLEMENTATION,
+} from './decorateMapComponent';
+import Geojson from './Geojson';
+
+// if ViewPropTypes is not defined fall back to View.propType (to support RN < 0.44)
+const viewPropTypes = ViewPropTypes || View.propTypes;
+
+const propTypes = {
+  ...viewPropTypes,
+
+  /**
+   * Url, file path or content uri of a GeoJSON document. The document is
+   * downloaded and parsed natively, off the main thread.
+   */
+  src: PropTypes.string,
+
+  /**
+   * An inline GeoJSON document, either as an object or as a json string.
+   * Takes precedence over `src`.
+   */
+  geojson: PropTypes.oneOfType([PropTypes.object, PropTypes.string]),
+
+  /**
+   * The stroke width to use for lines and polygon outlines.
+   */
+  strokeWidth: PropTypes.number,
+
+  /**
+   * The stroke color to use for lines and polygon outlines.
+   */
+  strokeColor: ColorPropType,
+
+  /**
+   * The fill color to use for polygons.
+   */
+  fillColor: ColorPropType,
+
+  /**
+   * The pin color to use for points.
+   */
+  pinColor: ColorPropType,
+
+  /**
+   * The order in which this layer overlays other map features.
+   */
+  zIndex: PropTypes.number,
+
+  /**
+   * Boolean to allow the lines and polygons of this layer to be tappable
+   * and use the onPress function. Points are always tappable.
+   */
+  tappable: PropTypes.bool,
+
+  /**
+   * Per feature style overrides. For every feature the first rule whose
+   * `property` is present in the feature's properties, and equal to `value`
+   * when a value is given, is applied on top of the layer's style.
+   */
+  styleRules: PropTypes.arrayOf(
+    PropTypes.shape({
+      property: PropTypes.string.isRequired,
+      value: PropTypes.oneOfType([
+        PropTypes.string,
+        PropTypes.number,
+        PropTypes.bool,
+      ]),
+      strokeWidth: PropTypes.number,
+      strokeColor: ColorPropType,
+      fillColor: ColorPropType,
+      pinColor: ColorPropType,
+      zIndex: PropTypes.number,
+    })
+  ),
+
+  /**
+   * Callback that is called when a feature of the layer is pressed.
+   */
+  onPress: PropTypes.func,
+
+  /**
+   * Callback that is called once every feature of the layer is on the map.
+   */
+  onLoad: PropTypes.func,
+};
+
+const defaultProps = {
+  strokeColor: '#000',
+  strokeWidth: 1,
+};
+
+const processStyleRule = rule => {
+  const processed = Object.assign({}, rule);
+  ['strokeColor', 'fillColor', 'pinColor'].forEach(key => {
+    if (rule[key] !== undefined) {
+      processed[key] = processColor(rule[key]);
+    }
+  });
+  return processed;
+};
+
+class MapGeojsonLayer extends React.Component {
+  setNativeProps(props) {
+    this.layer.setNativeProps(props);
+  }
+
+  render() {
+    const { geojson, styleRules } = this.props;
+
+    if (Platform.OS !== 'android') {
+      // no native layer, fall back to rendering the features from js
+      if (!geojson) {
+        console.warn(
+          'react-native-maps: GeojsonLayer src is only supported on android'
+        );
+        return null;
+      }
+      return (
+        <Geojson
+          {...this.props}
+          geojson={typeof geojson === 'string' ? JSON.parse(geojson) : geojson}
+          color={this.props.pinColor}
+        />
+      );
+    }
+
+    const AIRMapGeoJson = this.getAirComponent();
+    return (
+      <AIRMapGeoJson
+        {...this.props}
+        geojson={
+          geojson && typeof geojson !== 'string'
+            ? JSON.stringify(geojson)
+            : geojson
+        }
+        styleRules={styleRules && styleRules.map(processStyleRule)}
+        ref={ref => {
+          this.layer = ref;
+        }}
+      />
+    );
+  }
+}
+
+MapGeojsonLayer.propTypes = propTypes;
+MapGeojsonLayer.defaultProps = defaultProps;
+
+export default decorateMapComponent(MapGeojsonLayer, {
+  componentType: 'GeoJson',
+  providers: {
+    google: {
+      ios: NOT_SUPPORTED,
+      android: USES_DEFAULT_IMPLEMENTATION,
+    },
+  },
+});
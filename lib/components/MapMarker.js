@@ -10,6 +10,7 @@ import {
   findNodeHandle,
   ViewPropTypes,
   View,
+  processColor,
 } from 'react-native';
 
 import decorateMapComponent, {
@@ -67,6 +68,46 @@ const propTypes = {
    */
   icon: PropTypes.any,
 
+  /**
+   * Size in points remote `image` and `icon` sources are decoded at. Markers with the same
+   * source and size share one decoded bitmap.
+   *
+   * @platform android
+   */
+  imageSize: PropTypes.shape({
+    width: PropTypes.number.isRequired,
+    height: PropTypes.number.isRequired,
+  }),
+
+  /**
+   * Bitmap format remote `image` and `icon` sources are decoded to. `RGB_565` uses half the
+   * memory but drops transparency.
+   *
+   * @platform android
+   */
+  imageConfig: PropTypes.oneOf(['ARGB_8888', 'RGB_565']),
+
+  /**
+   * A text label drawn natively as the marker's icon, instead of rendering a view for it.
+   * Markers with the same text and style share one bitmap. Ignored when the marker has
+   * children.
+   *
+   * @platform android
+   */
+  label: PropTypes.shape({
+    text: PropTypes.string.isRequired,
+    fontSize: PropTypes.number,
+    fontFamily: PropTypes.string,
+    fontWeight: PropTypes.oneOfType([PropTypes.string, PropTypes.number]),
+    color: ColorPropType,
+    backgroundColor: ColorPropType,
+    borderColor: ColorPropType,
+    borderWidth: PropTypes.number,
+    paddingHorizontal: PropTypes.number,
+    paddingVertical: PropTypes.number,
+    cornerRadius: PropTypes.number,
+  }),
+
   /**
    * Opacity level of view/image based markers
    */
@@ -329,6 +370,23 @@ class MapMarker extends React.Component {
       icon = icon.uri;
     }
 
+    let label;
+    if (this.props.label) {
+      const {
+        color,
+        backgroundColor,
+        borderColor,
+        fontWeight,
+      } = this.props.label;
+      label = {
+        ...this.props.label,
+        color: color && processColor(color),
+        backgroundColor: backgroundColor && processColor(backgroundColor),
+        borderColor: borderColor && processColor(borderColor),
+        fontWeight: fontWeight && `${fontWeight}`,
+      };
+    }
+
     const AIRMapMarker = this.getAirComponent();
 
     return (
@@ -339,6 +397,7 @@ class MapMarker extends React.Component {
         {...this.props}
         image={image}
         icon={icon}
+        label={label}
         style={[styles.marker, this.props.style]}
         onPress={event => {
           if (this.props.stopPropagation) {
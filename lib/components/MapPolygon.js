@@ -51,6 +51,14 @@ const propTypes = {
    */
   tappable: PropTypes.bool,
 
+  /**
+   * An identifier used to reference this polygon, e.g. in the results of
+   * `getFeaturesInRegion`.
+   *
+   * @platform android
+   */
+  identifier: PropTypes.string,
+
   /**
    * The stroke width to use for the path.
    */
@@ -35,6 +35,14 @@ const propTypes = {
    */
   tappable: PropTypes.bool,
 
+  /**
+   * An identifier used to reference this polyline, e.g. in the results of
+   * `getFeaturesInRegion`.
+   *
+   * @platform android
+   */
+  identifier: PropTypes.string,
+
   /**
    * The fill color to use for the path.
    */
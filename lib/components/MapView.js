@@ -11,6 +11,9 @@ import {
   findNodeHandle,
   ViewPropTypes,
   View,
+  DeviceEventEmitter,
+  processColor,
+  Image,
 } from 'react-native';
 import MapMarker from './MapMarker';
 import MapPolyline from './MapPolyline';
@@ -64,6 +67,53 @@ const CameraShape = PropTypes.shape({
   zoom: PropTypes.number.isRequired,
 });
 
+const LatLngShape = PropTypes.shape({
+  latitude: PropTypes.number.isRequired,
+  longitude: PropTypes.number.isRequired,
+});
+
+/**
+ * A polygon fence given by `coordinates`, or a circle fence given by `center`
+ * and `radius` in meters.
+ */
+const GeofenceShape = PropTypes.shape({
+  id: PropTypes.string.isRequired,
+  coordinates: PropTypes.arrayOf(LatLngShape),
+  center: LatLngShape,
+  radius: PropTypes.number,
+});
+
+let staticMapBatchCount = 0;
+
+// Colors and the style have to be converted the way the native props are.
+const toNativeStaticMapRequest = request => {
+  const { customMapStyle, markers, polylines, polygons, ...rest } = request;
+  const nativeRequest = { ...rest };
+  if (customMapStyle) {
+    nativeRequest.customMapStyleString = JSON.stringify(customMapStyle);
+  }
+  if (markers) {
+    nativeRequest.markers = markers.map(marker => ({
+      ...marker,
+      pinColor: marker.pinColor && processColor(marker.pinColor),
+    }));
+  }
+  if (polylines) {
+    nativeRequest.polylines = polylines.map(polyline => ({
+      ...polyline,
+      strokeColor: polyline.strokeColor && processColor(polyline.strokeColor),
+    }));
+  }
+  if (polygons) {
+    nativeRequest.polygons = polygons.map(polygon => ({
+      ...polygon,
+      strokeColor: polygon.strokeColor && processColor(polygon.strokeColor),
+      fillColor: polygon.fillColor && processColor(polygon.fillColor),
+    }));
+  }
+  return nativeRequest;
+};
+
 // if ViewPropTypes is not defined fall back to View.propType (to support RN < 0.44)
 const viewPropTypes = ViewPropTypes || View.propTypes;
 
@@ -412,6 +462,13 @@ const propTypes = {
    */
   onKmlReady: PropTypes.func,
 
+  /**
+   * Callback that is called while the kml markers are being added to the map.
+   *
+   * @platform android
+   */
+  onKmlProgress: PropTypes.func,
+
   /**
    * Callback that is called continuously when the user is dragging the map.
    */
@@ -525,6 +582,84 @@ const propTypes = {
    * Callback that is called when a Building is focused.
    */
   onIndoorBuildingFocused: PropTypes.func,
+
+  /**
+   * Minimum time in milliseconds between two `onRegionChange` calls while
+   * the map moves. The latest region is still sent when the interval ends.
+   *
+   * @platform android
+   */
+  regionChangeThrottleMs: PropTypes.number,
+
+  /**
+   * Skip `onRegionChange` calls until the region moved by more than this
+   * fraction of the visible span.
+   *
+   * @platform android
+   */
+  regionChangeMinDelta: PropTypes.number,
+
+  /**
+   * Minimum time in milliseconds between two `onPanDrag`, `onMarkerDrag`
+   * and marker `onDrag` calls. The latest position is still sent when the
+   * interval ends.
+   *
+   * @platform android
+   */
+  dragEventThrottleMs: PropTypes.number,
+
+  /**
+   * Interval in milliseconds at which `onTileMetrics` is called. `0` disables it.
+   *
+   * @platform android
+   */
+  tileMetricsInterval: PropTypes.number,
+
+  /**
+   * Callback that is called periodically with the tile provider metrics.
+   *
+   * @platform android
+   */
+  onTileMetrics: PropTypes.func,
+
+  /**
+   * Minimum distance in meters from the last reported location before
+   * `onUserLocationChange` is called again.
+   *
+   * @platform android
+   */
+  userLocationDistanceFilter: PropTypes.number,
+
+  /**
+   * Minimum time in milliseconds between two `onUserLocationChange` calls.
+   *
+   * @platform android
+   */
+  userLocationMinIntervalMs: PropTypes.number,
+
+  /**
+   * Locations whose accuracy radius is larger than this many meters don't
+   * call `onUserLocationChange`. `0` accepts every location.
+   *
+   * @platform android
+   */
+  userLocationMaxAccuracy: PropTypes.number,
+
+  /**
+   * Fences tested natively against every user location update. Only
+   * entering or leaving a fence calls `onGeofenceTransition`.
+   *
+   * @platform android
+   */
+  geofences: PropTypes.arrayOf(GeofenceShape),
+
+  /**
+   * Callback that is called when the user location enters or exits one of
+   * the `geofences`.
+   *
+   * @platform android
+   */
+  onGeofenceTransition: PropTypes.func,
 };
 
 class MapView extends React.Component {
@@ -713,6 +848,27 @@ class MapView extends React.Component {
     this._runCommand('fitToCoordinates', [coordinates, edgePadding, animated]);
   }
 
+  /**
+   * Runs several commands at once, e.g.
+   * `[{ command: 'setCamera', args: [camera] },
+   *   { marker: 'id', command: 'showCallout' }]`.
+   * Operations with a `marker` go to the markers with that identifier.
+   * On Android they are applied together in the same frame, and a batch with
+   * an unknown command or wrongly typed arguments is rejected as a whole.
+   * Elsewhere the map commands are sent one by one.
+   */
+  executeBatch(operations) {
+    if (Platform.OS === 'android') {
+      this._runCommand('executeBatch', [operations]);
+      return;
+    }
+    operations.forEach(operation => {
+      if (operation.marker === undefined) {
+        this._runCommand(operation.command, operation.args || []);
+      }
+    });
+  }
+
   /**
    * Get visible boudaries
    *
@@ -745,9 +901,11 @@ class MapView extends React.Component {
    * @param [config.width] Width of the rendered map-view (when omitted actual view width is used).
    * @param [config.height] Height of the rendered map-view (when omitted actual height is used).
    * @param [config.region] Region to render (Only supported on iOS).
-   * @param [config.format] Encoding format ('png', 'jpg') (default: 'png').
-   * @param [config.quality] Compression quality (only used for jpg) (default: 1.0).
+   * @param [config.format] Encoding format ('png', 'jpg', 'webp' on Android) (default: 'png').
+   * @param [config.quality] Compression quality (only used for jpg and webp) (default: 1.0).
    * @param [config.result] Result format ('file', 'base64') (default: 'file').
+   * @param [config.includeEncodeTime] Resolve with `{ data, encodeTimeMs }` instead of
+   *   the string (Only supported on Android) (default: false).
    *
    * @return Promise Promise with either the file-uri or base64 encoded string
    */
@@ -783,8 +941,13 @@ class MapView extends React.Component {
       format: args.format || 'png',
       quality: args.quality || 1.0,
       result: args.result || 'file',
+      includeEncodeTime: !!args.includeEncodeTime,
     };
-    if (config.format !== 'png' && config.format !== 'jpg') {
+    if (
+      config.format !== 'png' &&
+      config.format !== 'jpg' &&
+      (config.format !== 'webp' || Platform.OS !== 'android')
+    ) {
       throw new Error('Invalid format specified');
     }
     if (config.result !== 'file' && config.result !== 'base64') {
@@ -858,6 +1021,205 @@ class MapView extends React.Component {
     return Promise.reject('coordinateForPoint not supported on this platform');
   }
 
+  /**
+   * Convert many map coordinates to user-space points in one call
+   *
+   * @param coordinates Array<Number> packed [latitude, longitude, latitude, ...]
+   *
+   * @return Promise Promise with the packed points ([x, y, x, ...])
+   */
+  pointsForCoordinates(coordinates) {
+    if (Platform.OS === 'android') {
+      return NativeModules.AirMapModule.pointsForCoordinates(
+        this._getHandle(),
+        coordinates
+      );
+    }
+    return Promise.reject(
+      'pointsForCoordinates not supported on this platform'
+    );
+  }
+
+  /**
+   * Convert many user-space points to map coordinates in one call
+   *
+   * @param points Array<Number> packed [x, y, x, ...]
+   *
+   * @return Promise Promise with the packed coordinates ([latitude, longitude, latitude, ...])
+   */
+  coordinatesForPoints(points) {
+    if (Platform.OS === 'android') {
+      return NativeModules.AirMapModule.coordinatesForPoints(
+        this._getHandle(),
+        points
+      );
+    }
+    return Promise.reject(
+      'coordinatesForPoints not supported on this platform'
+    );
+  }
+
+  /**
+   * Get the identifiers of the markers, polylines and polygons intersecting
+   * the given bounds
+   *
+   * @param bounds Object ({ northEast: <LatLng>, southWest: <LatLng> })
+   * @param types Array<String> subset of 'marker', 'polyline' and 'polygon', all when omitted
+   *
+   * @return Promise Promise with { markers, polylines, polygons }
+   */
+  getFeaturesInRegion(bounds, types) {
+    if (Platform.OS === 'android') {
+      return NativeModules.AirMapModule.getFeaturesInRegion(
+        this._getHandle(),
+        bounds,
+        types || null
+      );
+    }
+    return Promise.reject('getFeaturesInRegion not supported on this platform');
+  }
+
+  /**
+   * Keep up to `size` ready Google maps around, created while the app is
+   * idle, so that mounting a MapView doesn't wait for a new map. Unmounted
+   * maps go back into the pool. `0` disables the pool.
+   *
+   * @platform android
+   */
+  static setViewPoolSize(size) {
+    if (Platform.OS === 'android') {
+      NativeModules.AirMapModule.setMapViewPoolSize(size);
+    }
+  }
+
+  /**
+   * Decode remote marker images ahead of time, so that markers mounted later
+   * with the same `icon` or `image`, `imageSize` and `imageConfig` show their
+   * icon right away. Resolves with `{ loaded, failed }`.
+   *
+   * @platform android
+   */
+  static prefetchMarkerImages(sources, size, imageConfig) {
+    if (Platform.OS !== 'android') {
+      return Promise.reject(
+        'prefetchMarkerImages not supported on this platform'
+      );
+    }
+    const uris = sources
+      .map(source =>
+        typeof source === 'string'
+          ? source
+          : (Image.resolveAssetSource(source) || {}).uri
+      )
+      .filter(uri => !!uri);
+    return NativeModules.AirMapModule.prefetchMarkerImages(
+      uris,
+      size || null,
+      imageConfig || null
+    );
+  }
+
+  /**
+   * Render map thumbnails to files with one hidden lite mode map, one request
+   * at a time. Each request takes `width`, `height`, a `region` or `camera`,
+   * and optionally `id`, `mapType`, `customMapStyle`, `markers`, `polylines`,
+   * `polygons`, `format` and `quality`.
+   *
+   * `onProgress` is called with `{ id, index, total, uri }`, or `error`
+   * instead of `uri`, after each request. Resolves with one `{ id, uri }` or
+   * `{ id, error }` per request.
+   *
+   * @platform android
+   */
+  static renderStaticMaps(requests, onProgress) {
+    if (Platform.OS !== 'android') {
+      return Promise.reject('renderStaticMaps not supported on this platform');
+    }
+    staticMapBatchCount += 1;
+    const batchId = `${staticMapBatchCount}`;
+    const subscription =
+      onProgress &&
+      DeviceEventEmitter.addListener('AirMapStaticMapProgress', event => {
+        if (event.batchId === batchId) {
+          onProgress(event);
+        }
+      });
+    const remove = () => subscription && subscription.remove();
+    return NativeModules.AirMapModule.renderStaticMaps(
+      batchId,
+      requests.map(toNativeStaticMapRequest)
+    ).then(
+      results => {
+        remove();
+        return results;
+      },
+      error => {
+        remove();
+        throw error;
+      }
+    );
+  }
+
+  /**
+   * Get request counters and latency percentiles of the tile providers
+   *
+   * @param reset boolean true to reset the counters after reading them
+   *
+   * @return Promise Promise with { urlTile, wmsTile, localTile, gradientPolyline }
+   */
+  getTileMetrics(reset = false) {
+    if (Platform.OS === 'android') {
+      return NativeModules.AirMapModule.getTileMetrics(reset);
+    }
+    return Promise.reject('getTileMetrics not supported on this platform');
+  }
+
+  /**
+   * Get the number of region change events delivered, dropped and coalesced
+   *
+   * @param reset boolean true to reset the counters after reading them
+   *
+   * @return Promise Promise with { delivered, dropped, coalesced }
+   */
+  getRegionChangeStats(reset = false) {
+    if (Platform.OS === 'android') {
+      return NativeModules.AirMapModule.getRegionChangeStats(
+        this._getHandle(),
+        reset
+      );
+    }
+    return Promise.reject(
+      'getRegionChangeStats not supported on this platform'
+    );
+  }
+
+  /**
+   * Get the current settings of the native map, like its enabled gestures,
+   * UI controls and zoom limits.
+   *
+   * @return Promise Promise with the settings
+   */
+  getMapSettings() {
+    if (Platform.OS === 'android') {
+      return NativeModules.AirMapModule.getMapSettings(this._getHandle());
+    }
+    return Promise.reject('getMapSettings not supported on this platform');
+  }
+
+  /**
+   * Get the number of features registered with the native map, spatially
+   * indexed and waiting to be added to or removed from the map. Resolves once
+   * every view update issued before the call has been applied.
+   *
+   * @return Promise Promise with { registered, indexed, pendingAdds, pendingRemoves }
+   */
+  getFeatureStats() {
+    if (Platform.OS === 'android') {
+      return NativeModules.AirMapModule.getFeatureStats(this._getHandle());
+    }
+    return Promise.reject('getFeatureStats not supported on this platform');
+  }
+
   /**
    * Get markers' centers and frames in user-space coordinates
    *